@@ -0,0 +1,101 @@
+package com.quickform.api.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Wraps the DataSource bean and times each connection from getConnection to close. Only connections taken by
+ * the thread passed to start are timed, so background workers sharing the pool do not skew the numbers.
+ */
+class ConnectionHoldTimer implements BeanPostProcessor {
+    private volatile Thread recording;
+    private long holds;
+    private long totalNanos;
+    private long maxNanos;
+
+    void start() {
+        recording = Thread.currentThread();
+    }
+
+    void pause() {
+        recording = null;
+    }
+
+    void reset() {
+        holds = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    long holds() {
+        return holds;
+    }
+
+    double totalMicros() {
+        return totalNanos / 1000.0;
+    }
+
+    double maxMicros() {
+        return maxNanos / 1000.0;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return timed(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return timed(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private Connection timed(Connection connection) {
+        if (recording != Thread.currentThread()) {
+            return connection;
+        }
+        long borrowedAt = System.nanoTime();
+        boolean[] closed = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "close":
+                        if (!closed[0]) {
+                            closed[0] = true;
+                            record(System.nanoTime() - borrowedAt);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            });
+    }
+
+    private void record(long nanos) {
+        holds++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+}
@@ -0,0 +1,53 @@
+package com.quickform.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickform.api.service.JsonHelper;
+import org.openjdk.jmh.annotations.*;
+import org.postgresql.util.PGobject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int fieldCount;
+
+    private ObjectMapper objectMapper;
+    private JsonHelper jsonHelper;
+    private PGobject column;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        jsonHelper = new JsonHelper(objectMapper);
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            switch (i % 3) {
+                case 0 -> data.put("text_" + i, "value " + i + " with some descriptive content");
+                case 1 -> data.put("amount_" + i, i * 12.5);
+                default -> data.put("flag_" + i, i % 2 == 0);
+            }
+        }
+        column = new PGobject();
+        column.setType("jsonb");
+        column.setValue(objectMapper.writeValueAsString(data));
+    }
+
+    @Benchmark
+    public byte[] mapRoundTrip() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of("data", jsonHelper.toMap(column)));
+    }
+
+    @Benchmark
+    public byte[] rawPassthrough() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of("data", jsonHelper.toRaw(column)));
+    }
+}
@@ -0,0 +1,123 @@
+package com.quickform.api.benchmark;
+
+import com.quickform.api.QuickFormApplication;
+import com.quickform.api.dto.DataWriteRequest;
+import com.quickform.api.dto.WorkflowActionRequest;
+import com.quickform.api.dto.WorkflowTemplateSaveRequest;
+import com.quickform.api.service.DataService;
+import com.quickform.api.service.WorkflowService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Needs a running Postgres with the schema applied, e.g.
+ * -Dexec.args="WorkflowApprovalBenchmark -jvmArgs -Dspring.datasource.url=jdbc:postgresql://localhost:5432/quickform".
+ * Besides the average latency, each iteration prints how long the benchmark thread held pool connections per
+ * operation, which is what the single-round-trip path is meant to cut.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowApprovalBenchmark {
+    private static final String PAGE_CODE = "bench_workflow";
+
+    @Param({"legacy", "cte"})
+    private String path;
+
+    private ConfigurableApplicationContext context;
+    private DataService dataService;
+    private WorkflowService workflowService;
+    private UUID recordId;
+    private final ConnectionHoldTimer holdTimer = new ConnectionHoldTimer();
+    private long operations;
+
+    @Setup(Level.Trial)
+    public void start() {
+        SpringApplication application = new SpringApplication(QuickFormApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.addInitializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(holdTimer));
+        context = application.run(
+            "--quickform.workflow.single-round-trip=" + "cte".equals(path),
+            "--quickform.workflow.template-cache.listen=false");
+        dataService = context.getBean(DataService.class);
+        workflowService = context.getBean(WorkflowService.class);
+
+        WorkflowTemplateSaveRequest template = new WorkflowTemplateSaveRequest();
+        template.setPageCode(PAGE_CODE);
+        template.setTemplateCode("bench");
+        template.setName("bench");
+        template.setIsDefault(true);
+        template.setConfig(Map.of("nodes", List.of(
+            Map.of("code", "review", "mode", "all", "assignees", List.of("u1", "u2")),
+            Map.of("code", "sign", "mode", "any", "assignees", List.of("d1", "d2")))));
+        workflowService.saveTemplate(template);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetHoldTime() {
+        holdTimer.reset();
+        operations = 0;
+    }
+
+    @Setup(Level.Invocation)
+    public void submit() {
+        holdTimer.pause();
+        DataWriteRequest record = new DataWriteRequest();
+        record.setData(Map.of("title", "bench"));
+        record.setOperator("applicant");
+        recordId = dataService.create(PAGE_CODE, record);
+        workflowService.submit(PAGE_CODE, recordId, action("applicant"));
+        operations++;
+        holdTimer.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportHoldTime() {
+        holdTimer.pause();
+        long holds = holdTimer.holds();
+        System.out.printf("%n[%s] connection held %.1f us/op over %d ops (%d holds, avg %.1f us, max %.1f us)%n",
+            path,
+            operations == 0 ? 0.0 : holdTimer.totalMicros() / operations,
+            operations,
+            holds,
+            holds == 0 ? 0.0 : holdTimer.totalMicros() / holds,
+            holdTimer.maxMicros());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    // review (all of u1, u2) -> sign (any of d1, d2) -> approved
+    @Benchmark
+    public int approveChain() {
+        return workflowService.approve(PAGE_CODE, recordId, action("u1"))
+            + workflowService.approve(PAGE_CODE, recordId, action("u2"))
+            + workflowService.approve(PAGE_CODE, recordId, action("d1"));
+    }
+
+    @Benchmark
+    public int reject() {
+        return workflowService.reject(PAGE_CODE, recordId, action("u1"));
+    }
+
+    private WorkflowActionRequest action(String operator) {
+        WorkflowActionRequest request = new WorkflowActionRequest();
+        request.setOperator(operator);
+        request.setComment("bench");
+        return request;
+    }
+}
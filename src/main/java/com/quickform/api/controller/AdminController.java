@@ -0,0 +1,200 @@
+package com.quickform.api.controller;
+
+import com.quickform.api.dto.ApiResponse;
+import com.quickform.api.dto.DataIndexRequest;
+import com.quickform.api.dto.DataSearchConfigRequest;
+import com.quickform.api.service.DataIndexService;
+import com.quickform.api.service.DataQueryPlanner;
+import com.quickform.api.service.DataSearchService;
+import com.quickform.api.service.OnlineIndexService;
+import com.quickform.api.service.ReportDefinitionCache;
+import com.quickform.api.service.ReportJobService;
+import com.quickform.api.service.ReportSnapshotService;
+import com.quickform.api.service.ReportResultCache;
+import com.quickform.api.service.WorkflowArchiveService;
+import com.quickform.api.service.WorkflowEventDispatcher;
+import com.quickform.api.service.WorkflowTaskEventHub;
+import com.quickform.api.service.WorkflowTemplateCache;
+import com.quickform.api.service.WorkflowTodoCounter;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+    private final DataQueryPlanner queryPlanner;
+    private final DataIndexService dataIndexService;
+    private final DataSearchService dataSearchService;
+    private final OnlineIndexService onlineIndexService;
+    private final WorkflowTemplateCache templateCache;
+    private final WorkflowTodoCounter todoCounter;
+    private final WorkflowTaskEventHub taskEventHub;
+    private final WorkflowEventDispatcher eventDispatcher;
+    private final WorkflowArchiveService archiveService;
+    private final ReportResultCache reportResultCache;
+    private final ReportDefinitionCache reportDefinitionCache;
+    private final ReportJobService reportJobService;
+    private final ReportSnapshotService reportSnapshotService;
+
+    public AdminController(DataQueryPlanner queryPlanner,
+                           DataIndexService dataIndexService,
+                           DataSearchService dataSearchService,
+                           OnlineIndexService onlineIndexService,
+                           WorkflowTemplateCache templateCache,
+                           WorkflowTodoCounter todoCounter,
+                           WorkflowTaskEventHub taskEventHub,
+                           WorkflowEventDispatcher eventDispatcher,
+                           WorkflowArchiveService archiveService,
+                           ReportResultCache reportResultCache,
+                           ReportDefinitionCache reportDefinitionCache,
+                           ReportJobService reportJobService,
+                           ReportSnapshotService reportSnapshotService) {
+        this.queryPlanner = queryPlanner;
+        this.dataIndexService = dataIndexService;
+        this.dataSearchService = dataSearchService;
+        this.onlineIndexService = onlineIndexService;
+        this.templateCache = templateCache;
+        this.todoCounter = todoCounter;
+        this.taskEventHub = taskEventHub;
+        this.eventDispatcher = eventDispatcher;
+        this.archiveService = archiveService;
+        this.reportResultCache = reportResultCache;
+        this.reportDefinitionCache = reportDefinitionCache;
+        this.reportJobService = reportJobService;
+        this.reportSnapshotService = reportSnapshotService;
+    }
+
+    @PostMapping("/query-plan-cache/stats")
+    public ApiResponse<Map<String, Object>> queryPlanCacheStats() {
+        return ApiResponse.ok(queryPlanner.stats());
+    }
+
+    @PostMapping("/data-index/{pageCode}/usage")
+    public ApiResponse<List<Map<String, Object>>> dataIndexUsage(@PathVariable String pageCode) {
+        return ApiResponse.ok(dataIndexService.usage(pageCode));
+    }
+
+    @PostMapping("/data-index/{pageCode}/list")
+    public ApiResponse<List<Map<String, Object>>> dataIndexList(@PathVariable String pageCode) {
+        return ApiResponse.ok(dataIndexService.list(pageCode));
+    }
+
+    @PostMapping("/data-index/{pageCode}/create")
+    public ApiResponse<Map<String, Object>> dataIndexCreate(@PathVariable String pageCode,
+                                                            @RequestBody DataIndexRequest request) {
+        return ApiResponse.ok(dataIndexService.create(pageCode, request));
+    }
+
+    @PostMapping("/data-index/{pageCode}/drop")
+    public ApiResponse<Map<String, Object>> dataIndexDrop(@PathVariable String pageCode,
+                                                          @RequestBody DataIndexRequest request) {
+        return ApiResponse.ok(dataIndexService.drop(pageCode, request));
+    }
+
+    @PostMapping("/data-search/{pageCode}/get")
+    public ApiResponse<Map<String, Object>> dataSearchGet(@PathVariable String pageCode) {
+        return ApiResponse.ok(dataSearchService.getConfig(pageCode));
+    }
+
+    @PostMapping("/data-search/{pageCode}/save")
+    public ApiResponse<Map<String, Object>> dataSearchSave(@PathVariable String pageCode,
+                                                           @RequestBody DataSearchConfigRequest request) {
+        return ApiResponse.ok(dataSearchService.saveConfig(pageCode, request));
+    }
+
+    @PostMapping("/data-search/{pageCode}/rebuild")
+    public ApiResponse<Map<String, Object>> dataSearchRebuild(@PathVariable String pageCode) {
+        return ApiResponse.ok(dataSearchService.rebuild(pageCode));
+    }
+
+    @PostMapping("/online-indexes/stats")
+    public ApiResponse<Map<String, Object>> onlineIndexStats() {
+        return ApiResponse.ok(onlineIndexService.stats());
+    }
+
+    @PostMapping("/workflow-template-cache/stats")
+    public ApiResponse<Map<String, Object>> workflowTemplateCacheStats() {
+        return ApiResponse.ok(templateCache.stats());
+    }
+
+    @PostMapping("/workflow-template-cache/clear")
+    public ApiResponse<Boolean> workflowTemplateCacheClear() {
+        templateCache.invalidateAll();
+        return ApiResponse.ok(true);
+    }
+
+    @PostMapping("/workflow-todo-counter/stats")
+    public ApiResponse<Map<String, Object>> workflowTodoCounterStats() {
+        return ApiResponse.ok(todoCounter.stats());
+    }
+
+    @PostMapping("/workflow-todo-counter/rebuild")
+    public ApiResponse<Map<String, Object>> workflowTodoCounterRebuild() {
+        return ApiResponse.ok(todoCounter.rebuild());
+    }
+
+    @PostMapping("/workflow-task-events/stats")
+    public ApiResponse<Map<String, Object>> workflowTaskEventStats() {
+        return ApiResponse.ok(taskEventHub.stats());
+    }
+
+    @PostMapping("/workflow-outbox/stats")
+    public ApiResponse<Map<String, Object>> workflowOutboxStats() {
+        return ApiResponse.ok(eventDispatcher.stats());
+    }
+
+    @PostMapping("/workflow-archive/run")
+    public ApiResponse<Map<String, Object>> workflowArchiveRun() {
+        return ApiResponse.ok(archiveService.run());
+    }
+
+    @PostMapping("/workflow-archive/stats")
+    public ApiResponse<Map<String, Object>> workflowArchiveStats() {
+        return ApiResponse.ok(archiveService.stats());
+    }
+
+    @PostMapping("/report-cache/stats")
+    public ApiResponse<Map<String, Object>> reportCacheStats() {
+        return ApiResponse.ok(reportResultCache.stats());
+    }
+
+    @PostMapping("/report-cache/clear")
+    public ApiResponse<Boolean> reportCacheClear() {
+        reportResultCache.invalidateAll();
+        return ApiResponse.ok(true);
+    }
+
+    @PostMapping("/report-cache/{pageCode}/clear")
+    public ApiResponse<Boolean> reportCacheClearPage(@PathVariable String pageCode) {
+        reportResultCache.invalidate(pageCode);
+        return ApiResponse.ok(true);
+    }
+
+    @PostMapping("/report-definition-cache/stats")
+    public ApiResponse<Map<String, Object>> reportDefinitionCacheStats() {
+        return ApiResponse.ok(reportDefinitionCache.stats());
+    }
+
+    @PostMapping("/report-definition-cache/clear")
+    public ApiResponse<Boolean> reportDefinitionCacheClear() {
+        reportDefinitionCache.invalidateAll();
+        return ApiResponse.ok(true);
+    }
+
+    @PostMapping("/report-jobs/stats")
+    public ApiResponse<Map<String, Object>> reportJobStats() {
+        return ApiResponse.ok(reportJobService.stats());
+    }
+
+    @PostMapping("/report-snapshots/stats")
+    public ApiResponse<Map<String, Object>> reportSnapshotStats() {
+        return ApiResponse.ok(reportSnapshotService.stats());
+    }
+
+    @PostMapping("/report-snapshots/{pageCode}/refresh")
+    public ApiResponse<Map<String, Object>> reportSnapshotRefresh(@PathVariable String pageCode) {
+        return ApiResponse.ok(reportSnapshotService.refresh(pageCode));
+    }
+}
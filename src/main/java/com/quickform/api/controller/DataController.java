@@ -1,12 +1,20 @@
 package com.quickform.api.controller;
 
 import com.quickform.api.dto.ApiResponse;
+import com.quickform.api.dto.DataBatchRequest;
+import com.quickform.api.dto.DataGetRequest;
 import com.quickform.api.dto.DataQueryRequest;
 import com.quickform.api.dto.DataWriteRequest;
 import com.quickform.api.dto.PageResult;
+import com.quickform.api.service.DataImportService;
 import com.quickform.api.service.DataService;
+import com.quickform.api.service.RowStreamWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
 
@@ -14,9 +22,11 @@ import java.util.UUID;
 @RequestMapping("/data")
 public class DataController {
     private final DataService dataService;
+    private final DataImportService dataImportService;
 
-    public DataController(DataService dataService) {
+    public DataController(DataService dataService, DataImportService dataImportService) {
         this.dataService = dataService;
+        this.dataImportService = dataImportService;
     }
 
     @PostMapping("/{pageCode}/query")
@@ -27,6 +37,47 @@ public class DataController {
         return ApiResponse.ok(dataService.query(pageCode, request));
     }
 
+    @PostMapping("/{pageCode}/export")
+    public void export(
+        @PathVariable String pageCode,
+        @RequestParam(defaultValue = "ndjson") String format,
+        @RequestBody(required = false) DataQueryRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(RowStreamWriter.contentType(format));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"" + pageCode + "." + RowStreamWriter.normalizeFormat(format) + "\"");
+        try {
+            dataService.export(pageCode, request, format, response.getOutputStream());
+        } catch (RuntimeException ex) {
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            throw ex;
+        }
+    }
+
+    @PostMapping("/{pageCode}/import")
+    public ApiResponse<Map<String, Object>> importRecords(
+        @PathVariable String pageCode,
+        @RequestParam(defaultValue = "ndjson") String format,
+        @RequestParam(required = false) String status,
+        @RequestParam(required = false) String operator,
+        @RequestParam(required = false) String importId,
+        HttpServletRequest request
+    ) throws IOException {
+        return ApiResponse.ok(dataImportService.importRecords(pageCode, format, status, operator, importId,
+            request.getInputStream()));
+    }
+
+    @PostMapping("/{pageCode}/import/{importId}/status")
+    public ApiResponse<Map<String, Object>> importStatus(
+        @PathVariable String pageCode,
+        @PathVariable String importId
+    ) {
+        return ApiResponse.ok(dataImportService.status(pageCode, importId));
+    }
+
     @PostMapping("/{pageCode}/create")
     public ApiResponse<UUID> create(
         @PathVariable String pageCode,
@@ -35,6 +86,14 @@ public class DataController {
         return ApiResponse.ok(dataService.create(pageCode, request));
     }
 
+    @PostMapping("/{pageCode}/batch")
+    public ApiResponse<Map<String, Object>> batch(
+        @PathVariable String pageCode,
+        @RequestBody DataBatchRequest request
+    ) {
+        return ApiResponse.ok(dataService.batch(pageCode, request));
+    }
+
     @PostMapping("/{pageCode}/{id}/update")
     public ApiResponse<Integer> update(
         @PathVariable String pageCode,
@@ -55,8 +114,9 @@ public class DataController {
     @PostMapping("/{pageCode}/{id}/get")
     public ApiResponse<Map<String, Object>> get(
         @PathVariable String pageCode,
-        @PathVariable UUID id
+        @PathVariable UUID id,
+        @RequestBody(required = false) DataGetRequest request
     ) {
-        return ApiResponse.ok(dataService.get(pageCode, id));
+        return ApiResponse.ok(dataService.get(pageCode, id, request));
     }
 }
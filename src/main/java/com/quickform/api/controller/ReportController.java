@@ -1,25 +1,110 @@
 package com.quickform.api.controller;
 
 import com.quickform.api.dto.ApiResponse;
+import com.quickform.api.dto.PageResult;
+import com.quickform.api.dto.ReportPageRequest;
 import com.quickform.api.dto.ReportRunRequest;
+import com.quickform.api.service.ReportJobService;
 import com.quickform.api.service.ReportService;
+import com.quickform.api.service.RowStreamWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/report")
 public class ReportController {
+    private static final String SNAPSHOT_HEADER = "X-Report-Snapshot-At";
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, ReportJobService reportJobService) {
         this.reportService = reportService;
+        this.reportJobService = reportJobService;
     }
 
     @PostMapping("/run")
-    public ApiResponse<List<Map<String, Object>>> run(@Valid @RequestBody ReportRunRequest request) {
+    public ApiResponse<List<Map<String, Object>>> run(@Valid @RequestBody ReportRunRequest request,
+                                                      HttpServletResponse response) {
+        setSnapshotHeader(request.getPageCode(), response);
         return ApiResponse.ok(reportService.run(request));
     }
+
+    @PostMapping("/page")
+    public ApiResponse<PageResult<Map<String, Object>>> page(@Valid @RequestBody ReportPageRequest request,
+                                                             HttpServletResponse response) {
+        setSnapshotHeader(request.getPageCode(), response);
+        return ApiResponse.ok(reportService.page(request));
+    }
+
+    @PostMapping("/stream")
+    public void stream(
+        @RequestParam(defaultValue = "ndjson") String format,
+        @Valid @RequestBody ReportRunRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(RowStreamWriter.contentType(format));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"" + request.getPageCode() + "." + RowStreamWriter.normalizeFormat(format) + "\"");
+        setSnapshotHeader(request.getPageCode(), response);
+        try {
+            reportService.stream(request, format, response.getOutputStream());
+        } catch (RuntimeException ex) {
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            throw ex;
+        }
+    }
+
+    @PostMapping("/submit")
+    public ApiResponse<Map<String, Object>> submit(
+        @RequestParam(required = false) String operator,
+        @Valid @RequestBody ReportRunRequest request
+    ) {
+        return ApiResponse.ok(reportJobService.submit(request, operator));
+    }
+
+    @PostMapping("/job/{id}/status")
+    public ApiResponse<Map<String, Object>> jobStatus(@PathVariable UUID id) {
+        return ApiResponse.ok(reportJobService.status(id));
+    }
+
+    @PostMapping("/job/{id}/result")
+    public void jobResult(
+        @PathVariable UUID id,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+        HttpServletResponse response
+    ) throws IOException {
+        byte[] result = reportJobService.result(id);
+        response.setContentType(RowStreamWriter.contentType(RowStreamWriter.NDJSON));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + ".ndjson\"");
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            // Stored gzipped, so clients that accept it get the bytes as they are.
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(result.length);
+            response.getOutputStream().write(result);
+            return;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(result))) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    private void setSnapshotHeader(String pageCode, HttpServletResponse response) {
+        LocalDateTime snapshotAt = reportService.snapshotAt(pageCode);
+        if (snapshotAt != null) {
+            response.setHeader(SNAPSHOT_HEADER, snapshotAt.toString());
+        }
+    }
 }
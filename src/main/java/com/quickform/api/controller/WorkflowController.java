@@ -2,7 +2,9 @@ package com.quickform.api.controller;
 
 import com.quickform.api.dto.*;
 import com.quickform.api.service.WorkflowService;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 import java.util.UUID;
@@ -68,6 +70,32 @@ public class WorkflowController {
         return ApiResponse.ok(workflowService.reject(pageCode, id, request));
     }
 
+    @PostMapping("/batch/submit")
+    public ApiResponse<Map<String, Object>> batchSubmit(@RequestBody WorkflowBatchActionRequest request) {
+        return ApiResponse.ok(workflowService.batchSubmit(request));
+    }
+
+    @PostMapping("/batch/approve")
+    public ApiResponse<Map<String, Object>> batchApprove(@RequestBody WorkflowBatchActionRequest request) {
+        return ApiResponse.ok(workflowService.batchApprove(request));
+    }
+
+    @PostMapping("/batch/reject")
+    public ApiResponse<Map<String, Object>> batchReject(@RequestBody WorkflowBatchActionRequest request) {
+        return ApiResponse.ok(workflowService.batchReject(request));
+    }
+
+    // EventSource can only issue GET requests.
+    @GetMapping(value = "/todo/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeTodo(@RequestParam String assignee) {
+        return workflowService.subscribeTodo(assignee);
+    }
+
+    @PostMapping("/todo/summary")
+    public ApiResponse<Map<String, Object>> todoSummary(@RequestBody WorkflowTodoSummaryRequest request) {
+        return ApiResponse.ok(workflowService.todoSummary(request));
+    }
+
     @PostMapping("/todo/query")
     public ApiResponse<PageResult<Map<String, Object>>> todo(@RequestBody WorkflowTodoQueryRequest request) {
         return ApiResponse.ok(workflowService.queryTodo(request));
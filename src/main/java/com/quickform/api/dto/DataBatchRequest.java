@@ -0,0 +1,33 @@
+package com.quickform.api.dto;
+
+import java.util.List;
+
+public class DataBatchRequest {
+    private List<DataBatchOperation> operations;
+    private String operator;
+    private Boolean stopOnError;
+
+    public List<DataBatchOperation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<DataBatchOperation> operations) {
+        this.operations = operations;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public void setOperator(String operator) {
+        this.operator = operator;
+    }
+
+    public Boolean getStopOnError() {
+        return stopOnError;
+    }
+
+    public void setStopOnError(Boolean stopOnError) {
+        this.stopOnError = stopOnError;
+    }
+}
@@ -0,0 +1,33 @@
+package com.quickform.api.dto;
+
+import java.util.List;
+
+public class DataGetRequest {
+    private List<String> fields;
+    private Boolean includeData;
+    private Boolean rawData;
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+
+    public Boolean getIncludeData() {
+        return includeData;
+    }
+
+    public void setIncludeData(Boolean includeData) {
+        this.includeData = includeData;
+    }
+
+    public Boolean getRawData() {
+        return rawData;
+    }
+
+    public void setRawData(Boolean rawData) {
+        this.rawData = rawData;
+    }
+}
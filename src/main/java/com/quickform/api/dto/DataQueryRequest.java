@@ -9,6 +9,12 @@ public class DataQueryRequest {
     private Integer page;
     private Integer pageSize;
     private String keywords;
+    private String after;
+    private String totalMode;
+    private Integer totalCap;
+    private List<String> fields;
+    private Boolean includeData;
+    private Boolean rawData;
 
     public List<Filter> getFilters() {
         return filters;
@@ -57,4 +63,52 @@ public class DataQueryRequest {
     public void setKeywords(String keywords) {
         this.keywords = keywords;
     }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public String getTotalMode() {
+        return totalMode;
+    }
+
+    public void setTotalMode(String totalMode) {
+        this.totalMode = totalMode;
+    }
+
+    public Integer getTotalCap() {
+        return totalCap;
+    }
+
+    public void setTotalCap(Integer totalCap) {
+        this.totalCap = totalCap;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+
+    public Boolean getIncludeData() {
+        return includeData;
+    }
+
+    public void setIncludeData(Boolean includeData) {
+        this.includeData = includeData;
+    }
+
+    public Boolean getRawData() {
+        return rawData;
+    }
+
+    public void setRawData(Boolean rawData) {
+        this.rawData = rawData;
+    }
 }
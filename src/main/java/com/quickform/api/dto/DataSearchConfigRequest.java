@@ -0,0 +1,15 @@
+package com.quickform.api.dto;
+
+import java.util.List;
+
+public class DataSearchConfigRequest {
+    private List<String> fields;
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+}
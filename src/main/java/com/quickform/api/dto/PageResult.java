@@ -7,6 +7,9 @@ public class PageResult<T> {
     private long total;
     private int page;
     private int pageSize;
+    private String nextCursor;
+    private String totalMode = "exact";
+    private boolean totalExact = true;
 
     public PageResult() {}
 
@@ -48,4 +51,28 @@ public class PageResult<T> {
     public void setPageSize(int pageSize) {
         this.pageSize = pageSize;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public String getTotalMode() {
+        return totalMode;
+    }
+
+    public void setTotalMode(String totalMode) {
+        this.totalMode = totalMode;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    public void setTotalExact(boolean totalExact) {
+        this.totalExact = totalExact;
+    }
 }
@@ -0,0 +1,54 @@
+package com.quickform.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.Map;
+
+public class ReportPageRequest {
+    @NotBlank
+    private String pageCode;
+    private Map<String, Object> params;
+    private Integer page;
+    private Integer pageSize;
+    private String after;
+
+    public String getPageCode() {
+        return pageCode;
+    }
+
+    public void setPageCode(String pageCode) {
+        this.pageCode = pageCode;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, Object> params) {
+        this.params = params;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+}
@@ -0,0 +1,42 @@
+package com.quickform.api.dto;
+
+import java.util.List;
+
+public class WorkflowBatchActionRequest {
+    private List<WorkflowBatchItem> items;
+    private String operator;
+    private String comment;
+    private String templateCode;
+
+    public List<WorkflowBatchItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<WorkflowBatchItem> items) {
+        this.items = items;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public void setOperator(String operator) {
+        this.operator = operator;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    public String getTemplateCode() {
+        return templateCode;
+    }
+
+    public void setTemplateCode(String templateCode) {
+        this.templateCode = templateCode;
+    }
+}
@@ -0,0 +1,60 @@
+package com.quickform.api.dto;
+
+import java.util.UUID;
+
+public class WorkflowBatchItem {
+    private String pageCode;
+    private UUID recordId;
+    private String nodeCode;
+    private String comment;
+    private String templateCode;
+    private String assignee;
+
+    public String getPageCode() {
+        return pageCode;
+    }
+
+    public void setPageCode(String pageCode) {
+        this.pageCode = pageCode;
+    }
+
+    public UUID getRecordId() {
+        return recordId;
+    }
+
+    public void setRecordId(UUID recordId) {
+        this.recordId = recordId;
+    }
+
+    public String getNodeCode() {
+        return nodeCode;
+    }
+
+    public void setNodeCode(String nodeCode) {
+        this.nodeCode = nodeCode;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    public String getTemplateCode() {
+        return templateCode;
+    }
+
+    public void setTemplateCode(String templateCode) {
+        this.templateCode = templateCode;
+    }
+
+    public String getAssignee() {
+        return assignee;
+    }
+
+    public void setAssignee(String assignee) {
+        this.assignee = assignee;
+    }
+}
@@ -7,6 +7,8 @@ public class WorkflowMyApplyQueryRequest {
     private String keywords;
     private Integer page;
     private Integer pageSize;
+    private String totalMode;
+    private Integer totalCap;
 
     public String getOperator() {
         return operator;
@@ -55,4 +57,20 @@ public class WorkflowMyApplyQueryRequest {
     public void setPageSize(Integer pageSize) {
         this.pageSize = pageSize;
     }
+
+    public String getTotalMode() {
+        return totalMode;
+    }
+
+    public void setTotalMode(String totalMode) {
+        this.totalMode = totalMode;
+    }
+
+    public Integer getTotalCap() {
+        return totalCap;
+    }
+
+    public void setTotalCap(Integer totalCap) {
+        this.totalCap = totalCap;
+    }
 }
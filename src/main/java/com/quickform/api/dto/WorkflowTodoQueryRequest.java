@@ -6,6 +6,8 @@ public class WorkflowTodoQueryRequest {
     private String keywords;
     private Integer page;
     private Integer pageSize;
+    private String totalMode;
+    private Integer totalCap;
 
     public String getAssignee() {
         return assignee;
@@ -46,4 +48,20 @@ public class WorkflowTodoQueryRequest {
     public void setPageSize(Integer pageSize) {
         this.pageSize = pageSize;
     }
+
+    public String getTotalMode() {
+        return totalMode;
+    }
+
+    public void setTotalMode(String totalMode) {
+        this.totalMode = totalMode;
+    }
+
+    public Integer getTotalCap() {
+        return totalCap;
+    }
+
+    public void setTotalCap(Integer totalCap) {
+        this.totalCap = totalCap;
+    }
 }
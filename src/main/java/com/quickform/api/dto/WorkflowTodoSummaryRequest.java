@@ -0,0 +1,22 @@
+package com.quickform.api.dto;
+
+public class WorkflowTodoSummaryRequest {
+    private String assignee;
+    private String pageCode;
+
+    public String getAssignee() {
+        return assignee;
+    }
+
+    public void setAssignee(String assignee) {
+        this.assignee = assignee;
+    }
+
+    public String getPageCode() {
+        return pageCode;
+    }
+
+    public void setPageCode(String pageCode) {
+        this.pageCode = pageCode;
+    }
+}
@@ -0,0 +1,19 @@
+package com.quickform.api.exception;
+
+import java.util.Map;
+
+/**
+ * An import that stopped on a database or IO error; carries its progress, since earlier chunks stay committed.
+ */
+public class ImportFailedException extends RuntimeException {
+    private final Map<String, Object> progress;
+
+    public ImportFailedException(String message, Map<String, Object> progress, Throwable cause) {
+        super(message, cause);
+        this.progress = progress;
+    }
+
+    public Map<String, Object> getProgress() {
+        return progress;
+    }
+}
@@ -0,0 +1,34 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.HashMap;
+
+public class CompiledSql {
+    private final String sql;
+    private volatile SqlSource sqlSource;
+
+    public CompiledSql(String sql) {
+        this.sql = sql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    SqlSource sqlSource(Configuration configuration) {
+        SqlSource source = sqlSource;
+        if (source == null) {
+            source = new SqlSourceBuilder(configuration).parse(sql, HashMap.class, new HashMap<>());
+            sqlSource = source;
+        }
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
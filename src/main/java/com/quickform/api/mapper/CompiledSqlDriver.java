@@ -0,0 +1,50 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Map;
+
+/**
+ * Runs a {@link CompiledSql} passed as the "sql" parameter. The SQL text is parsed into a
+ * static source once per CompiledSql instance instead of once per call as with ${sql}.
+ */
+public class CompiledSqlDriver implements LanguageDriver {
+
+    @Override
+    public ParameterHandler createParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
+        return new DefaultParameterHandler(mappedStatement, parameterObject, boundSql);
+    }
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+        return new CompiledSqlSource(configuration);
+    }
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+        return new CompiledSqlSource(configuration);
+    }
+
+    private static class CompiledSqlSource implements SqlSource {
+        private final Configuration configuration;
+
+        private CompiledSqlSource(Configuration configuration) {
+            this.configuration = configuration;
+        }
+
+        @Override
+        public BoundSql getBoundSql(Object parameterObject) {
+            if (!(parameterObject instanceof Map<?, ?> params) || !(params.get("sql") instanceof CompiledSql sql)) {
+                throw new IllegalArgumentException("CompiledSql parameter 'sql' required");
+            }
+            return sql.sqlSource(configuration).getBoundSql(parameterObject);
+        }
+    }
+}
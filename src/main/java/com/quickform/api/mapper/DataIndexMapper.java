@@ -0,0 +1,26 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DataIndexMapper {
+    void executeDdl(@Param("sql") String sql);
+
+    int insertFieldIndex(@Param("pageCode") String pageCode,
+                         @Param("field") String field,
+                         @Param("kind") String kind,
+                         @Param("indexName") String indexName,
+                         @Param("operator") String operator);
+
+    int deleteFieldIndex(@Param("pageCode") String pageCode,
+                         @Param("field") String field,
+                         @Param("kind") String kind);
+
+    Map<String, Object> getFieldIndex(@Param("pageCode") String pageCode,
+                                      @Param("field") String field,
+                                      @Param("kind") String kind);
+
+    List<Map<String, Object>> listFieldIndexes(@Param("pageCode") String pageCode);
+}
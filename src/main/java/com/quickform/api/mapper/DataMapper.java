@@ -1,6 +1,7 @@
 package com.quickform.api.mapper;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 import java.util.Map;
@@ -21,9 +22,29 @@ public interface DataMapper {
 
     int deleteRecord(@Param("id") UUID id, @Param("pageCode") String pageCode);
 
-    Map<String, Object> getRecord(@Param("id") UUID id, @Param("pageCode") String pageCode);
+    List<UUID> createRecords(@Param("pageCode") String pageCode,
+                             @Param("ids") String[] ids,
+                             @Param("dataJsons") String[] dataJsons,
+                             @Param("statuses") String[] statuses,
+                             @Param("operators") String[] operators);
 
-    List<Map<String, Object>> query(@Param("sql") String sql, @Param("params") Map<String, Object> params);
+    List<UUID> updateRecords(@Param("pageCode") String pageCode,
+                             @Param("ids") String[] ids,
+                             @Param("dataJsons") String[] dataJsons,
+                             @Param("statuses") String[] statuses,
+                             @Param("operators") String[] operators);
 
-    Long count(@Param("sql") String sql, @Param("params") Map<String, Object> params);
+    List<UUID> deleteRecords(@Param("pageCode") String pageCode, @Param("ids") String[] ids);
+
+    Map<String, Object> getRecord(@Param("id") UUID id,
+                                  @Param("pageCode") String pageCode,
+                                  @Param("dataColumn") String dataColumn);
+
+    List<Map<String, Object>> query(@Param("sql") CompiledSql sql, @Param("params") Map<String, Object> params);
+
+    Cursor<Map<String, Object>> queryCursor(@Param("sql") CompiledSql sql, @Param("params") Map<String, Object> params);
+
+    Long count(@Param("sql") CompiledSql sql, @Param("params") Map<String, Object> params);
+
+    String explain(@Param("sql") CompiledSql sql, @Param("params") Map<String, Object> params);
 }
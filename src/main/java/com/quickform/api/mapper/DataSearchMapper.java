@@ -0,0 +1,20 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface DataSearchMapper {
+    Map<String, Object> getConfig(@Param("pageCode") String pageCode);
+
+    int saveConfig(@Param("pageCode") String pageCode, @Param("fields") String[] fields);
+
+    int deleteConfig(@Param("pageCode") String pageCode);
+
+    Map<String, Object> rebuildChunk(@Param("pageCode") String pageCode,
+                            @Param("afterId") UUID afterId,
+                            @Param("limit") int limit);
+
+    int backfillChunk(@Param("limit") int limit);
+}
@@ -0,0 +1,42 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface ReportJobMapper {
+    UUID insertJob(@Param("id") UUID id,
+                   @Param("pageCode") String pageCode,
+                   @Param("dedupKey") String dedupKey,
+                   @Param("params") String params,
+                   @Param("createdBy") String createdBy);
+
+    UUID findReusableJob(@Param("dedupKey") String dedupKey);
+
+    Map<String, Object> claimJob();
+
+    int countQueued();
+
+    int heartbeat(@Param("id") UUID id);
+
+    int updateProgress(@Param("id") UUID id, @Param("rowCount") long rowCount);
+
+    int finishJob(@Param("id") UUID id,
+                  @Param("rowCount") long rowCount,
+                  @Param("result") byte[] result,
+                  @Param("resultBytes") long resultBytes,
+                  @Param("ttlMs") long ttlMs);
+
+    int failJob(@Param("id") UUID id, @Param("error") String error, @Param("ttlMs") long ttlMs);
+
+    Map<String, Object> getJob(@Param("id") UUID id);
+
+    Map<String, Object> getJobResult(@Param("id") UUID id);
+
+    int failAbandoned(@Param("staleMs") long staleMs);
+
+    int purgeExpired(@Param("limit") int limit);
+
+    Map<String, Object> jobStats();
+}
@@ -1,6 +1,7 @@
 package com.quickform.api.mapper;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 import java.util.Map;
@@ -8,5 +9,9 @@ import java.util.Map;
 public interface ReportMapper {
     Map<String, Object> getReportByPage(@Param("pageCode") String pageCode);
 
-    List<Map<String, Object>> run(@Param("sql") String sql, @Param("params") Map<String, Object> params);
+    String setStatementTimeout(@Param("timeoutMs") String timeoutMs);
+
+    List<Map<String, Object>> run(@Param("sql") CompiledSql sql, @Param("params") Map<String, Object> params);
+
+    Cursor<Map<String, Object>> runCursor(@Param("sql") CompiledSql sql, @Param("params") Map<String, Object> params);
 }
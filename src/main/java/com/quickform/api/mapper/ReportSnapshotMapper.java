@@ -0,0 +1,38 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ReportSnapshotMapper {
+    List<Map<String, Object>> listMaterialized(@Param("retryMs") long retryMs);
+
+    List<Map<String, Object>> listOrphans();
+
+    boolean tryLock(@Param("reportId") long reportId);
+
+    Map<String, Object> getSnapshot(@Param("reportId") long reportId);
+
+    boolean relationExists(@Param("name") String name);
+
+    void executeDdl(@Param("sql") String sql);
+
+    int saveSnapshot(@Param("reportId") long reportId,
+                     @Param("pageCode") String pageCode,
+                     @Param("version") long version,
+                     @Param("viewName") String viewName,
+                     @Param("previousView") String previousView,
+                     @Param("concurrent") boolean concurrent,
+                     @Param("refreshMs") long refreshMs);
+
+    int recordError(@Param("reportId") long reportId,
+                    @Param("pageCode") String pageCode,
+                    @Param("error") String error);
+
+    int deleteSnapshot(@Param("reportId") long reportId);
+
+    void notifyChanged(@Param("channel") String channel, @Param("pageCode") String pageCode);
+
+    List<Map<String, Object>> listSnapshots();
+}
@@ -0,0 +1,16 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface WorkflowArchiveMapper {
+    LocalDateTime findOldestArchivable(@Param("cutoff") LocalDateTime cutoff);
+
+    int ensurePartitions(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    Map<String, Object> archiveBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    Map<String, Object> archiveStats();
+}
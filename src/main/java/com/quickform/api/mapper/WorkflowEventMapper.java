@@ -0,0 +1,25 @@
+package com.quickform.api.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+import java.util.Map;
+
+public interface WorkflowEventMapper {
+    List<Map<String, Object>> claimHeads(@Param("limit") int limit, @Param("token") String token,
+                                         @Param("leaseMs") long leaseMs);
+
+    List<Map<String, Object>> claimFollowers(@Param("instanceIds") Long[] instanceIds, @Param("limit") int limit,
+                                             @Param("token") String token, @Param("leaseMs") long leaseMs);
+
+    int markDispatched(@Param("ids") Long[] ids);
+
+    int markFailed(@Param("id") long id, @Param("token") String token, @Param("error") String error,
+                   @Param("delayMs") long delayMs);
+
+    int releaseLease(@Param("ids") Long[] ids, @Param("token") String token);
+
+    Map<String, Object> outboxStats();
+
+    int purgeDispatched(@Param("retentionDays") int retentionDays, @Param("limit") int limit);
+}
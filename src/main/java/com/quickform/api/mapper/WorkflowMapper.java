@@ -2,6 +2,7 @@ package com.quickform.api.mapper;
 
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -23,6 +24,10 @@ public interface WorkflowMapper {
 
     Map<String, Object> getDefaultTemplate(@Param("pageCode") String pageCode);
 
+    Map<String, Object> getTemplateById(@Param("id") long id);
+
+    void notifyTemplateChanged(@Param("channel") String channel, @Param("pageCode") String pageCode);
+
     Long insertTemplate(@Param("pageCode") String pageCode,
                         @Param("templateCode") String templateCode,
                         @Param("name") String name,
@@ -60,9 +65,66 @@ public interface WorkflowMapper {
                         @Param("starter") String starter,
                         @Param("currentNodeCode") String currentNodeCode);
 
+    List<Map<String, Object>> findSubmitStates(@Param("pageCodes") String[] pageCodes,
+                                               @Param("recordIds") String[] recordIds);
+
+    List<Map<String, Object>> submitInstances(@Param("pageCodes") String[] pageCodes,
+                                              @Param("recordIds") String[] recordIds,
+                                              @Param("templateIds") Long[] templateIds,
+                                              @Param("templateCodes") String[] templateCodes,
+                                              @Param("nodeCodes") String[] nodeCodes,
+                                              @Param("starter") String starter,
+                                              @Param("taskPageCodes") String[] taskPageCodes,
+                                              @Param("taskRecordIds") String[] taskRecordIds,
+                                              @Param("taskAssignees") String[] taskAssignees);
+
     Map<String, Object> getActiveInstance(@Param("recordId") UUID recordId,
                                           @Param("pageCode") String pageCode);
 
+    Map<String, Object> lockActiveInstance(@Param("recordId") UUID recordId,
+                                           @Param("pageCode") String pageCode);
+
+    Map<String, Object> completeActiveTask(@Param("instanceId") long instanceId,
+                                           @Param("nodeCode") String nodeCode,
+                                           @Param("operator") String operator,
+                                           @Param("action") String action,
+                                           @Param("comment") String comment,
+                                           @Param("nodeOrder") String[] nodeOrder,
+                                           @Param("anyNodes") String[] anyNodes,
+                                           @Param("cancelAll") boolean cancelAll,
+                                           @Param("finishStatus") String finishStatus);
+
+    int advanceInstance(@Param("instanceId") long instanceId,
+                        @Param("recordId") UUID recordId,
+                        @Param("pageCode") String pageCode,
+                        @Param("templateId") Long templateId,
+                        @Param("templateCode") String templateCode,
+                        @Param("nodeCode") String nodeCode,
+                        @Param("assignees") String[] assignees);
+
+    List<Map<String, Object>> lockActiveInstances(@Param("pageCodes") String[] pageCodes,
+                                                  @Param("recordIds") String[] recordIds);
+
+    List<Map<String, Object>> findActiveInstances(@Param("pageCodes") String[] pageCodes,
+                                                  @Param("recordIds") String[] recordIds);
+
+    List<Map<String, Object>> completeActiveTasks(@Param("instanceIds") Long[] instanceIds,
+                                                  @Param("nodeCodes") String[] nodeCodes,
+                                                  @Param("comments") String[] comments,
+                                                  @Param("operator") String operator,
+                                                  @Param("action") String action,
+                                                  @Param("anyInstanceIds") Long[] anyInstanceIds,
+                                                  @Param("anyNodeCodes") String[] anyNodeCodes,
+                                                  @Param("cancelAll") boolean cancelAll,
+                                                  @Param("finishStatus") String finishStatus);
+
+    int advanceInstances(@Param("instanceIds") Long[] instanceIds,
+                         @Param("nodeCodes") String[] nodeCodes,
+                         @Param("taskInstanceIds") Long[] taskInstanceIds,
+                         @Param("taskAssignees") String[] taskAssignees);
+
+    int completeInstances(@Param("instanceIds") Long[] instanceIds, @Param("status") String status);
+
     Map<String, Object> getLatestInstance(@Param("recordId") UUID recordId,
                                           @Param("pageCode") String pageCode);
 
@@ -72,17 +134,13 @@ public interface WorkflowMapper {
     int completeInstance(@Param("instanceId") long instanceId,
                          @Param("status") String status);
 
-    int insertTask(@Param("instanceId") long instanceId,
-                   @Param("recordId") UUID recordId,
-                   @Param("pageCode") String pageCode,
-                   @Param("templateId") Long templateId,
-                   @Param("templateCode") String templateCode,
-                   @Param("nodeCode") String nodeCode,
-                   @Param("assignee") String assignee,
-                   @Param("status") String status,
-                   @Param("action") String action,
-                   @Param("comment") String comment,
-                   @Param("operatedBy") String operatedBy);
+    int insertTasks(@Param("instanceId") long instanceId,
+                    @Param("recordId") UUID recordId,
+                    @Param("pageCode") String pageCode,
+                    @Param("templateId") Long templateId,
+                    @Param("templateCode") String templateCode,
+                    @Param("nodeCode") String nodeCode,
+                    @Param("assignees") String[] assignees);
 
     List<Long> findPendingTaskIds(@Param("instanceId") long instanceId,
                                   @Param("nodeCode") String nodeCode);
@@ -112,9 +170,22 @@ public interface WorkflowMapper {
     Long countPendingTasks(@Param("instanceId") long instanceId,
                            @Param("nodeCode") String nodeCode);
 
+    List<Map<String, Object>> listTodoCounts(@Param("assignee") String assignee);
+
+    void lockTasksForCounterRebuild();
+
+    int clearTodoCounters();
+
+    int fillTodoCounters();
+
     Long countTodo(@Param("assignee") String assignee,
                    @Param("pageCode") String pageCode,
-                   @Param("keywords") String keywords);
+                   @Param("keywords") String keywords,
+                   @Param("limit") Integer limit);
+
+    String explainTodo(@Param("assignee") String assignee,
+                       @Param("pageCode") String pageCode,
+                       @Param("keywords") String keywords);
 
     List<Map<String, Object>> queryTodo(@Param("assignee") String assignee,
                                         @Param("pageCode") String pageCode,
@@ -124,25 +195,53 @@ public interface WorkflowMapper {
 
     Long countDone(@Param("operator") String operator,
                    @Param("pageCode") String pageCode,
-                   @Param("keywords") String keywords);
+                   @Param("keywords") String keywords,
+                   @Param("limit") Integer limit,
+                   @Param("archiveFrom") LocalDateTime archiveFrom);
+
+    String explainDone(@Param("operator") String operator,
+                       @Param("pageCode") String pageCode,
+                       @Param("keywords") String keywords,
+                       @Param("archiveFrom") LocalDateTime archiveFrom);
 
     List<Map<String, Object>> queryDone(@Param("operator") String operator,
                                         @Param("pageCode") String pageCode,
                                         @Param("keywords") String keywords,
                                         @Param("limit") int limit,
-                                        @Param("offset") int offset);
+                                        @Param("offset") int offset,
+                                        @Param("archiveFrom") LocalDateTime archiveFrom);
 
     Long countMyApply(@Param("operator") String operator,
                       @Param("pageCode") String pageCode,
                       @Param("status") String status,
-                      @Param("keywords") String keywords);
+                      @Param("keywords") String keywords,
+                      @Param("limit") Integer limit,
+                      @Param("archiveFrom") LocalDateTime archiveFrom);
+
+    String explainMyApply(@Param("operator") String operator,
+                          @Param("pageCode") String pageCode,
+                          @Param("status") String status,
+                          @Param("keywords") String keywords,
+                          @Param("archiveFrom") LocalDateTime archiveFrom);
 
     List<Map<String, Object>> queryMyApply(@Param("operator") String operator,
                                            @Param("pageCode") String pageCode,
                                            @Param("status") String status,
                                            @Param("keywords") String keywords,
                                            @Param("limit") int limit,
-                                           @Param("offset") int offset);
+                                           @Param("offset") int offset,
+                                           @Param("archiveFrom") LocalDateTime archiveFrom);
+
+    List<Map<String, Object>> listTimelineByInstance(@Param("instanceId") long instanceId,
+                                                     @Param("archivedFrom") LocalDateTime archivedFrom);
+
+    Map<String, Object> backfillInstanceSearchText(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    Map<String, Object> backfillTaskSearchText(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    Map<String, Object> getBackfillProgress(@Param("name") String name);
 
-    List<Map<String, Object>> listTimelineByInstance(@Param("instanceId") long instanceId);
+    int saveBackfillProgress(@Param("name") String name,
+                             @Param("lastId") long lastId,
+                             @Param("finished") boolean finished);
 }
@@ -0,0 +1,411 @@
+package com.quickform.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.exception.ImportFailedException;
+import com.quickform.api.exception.NotFoundException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+@Service
+public class DataImportService {
+    private static final Pattern PAGE_CODE_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
+    private static final Pattern IMPORT_ID_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]{1,64}$");
+    private static final Set<String> RECORD_STATUSES = Set.of("draft", "submitted", "approved", "rejected");
+    private static final String COPY_SQL =
+        "COPY data_record (page_code, data, status, created_by, updated_by) FROM STDIN WITH (FORMAT csv)";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TRACKED_IMPORTS = 200;
+
+    private final DataSource dataSource;
+    private final JsonHelper jsonHelper;
+    private final ReportSnapshotService reportSnapshotService;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Map<String, ImportProgress> imports = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ImportProgress> eldest) {
+                return size() > MAX_TRACKED_IMPORTS;
+            }
+        });
+
+    public DataImportService(DataSource dataSource,
+                             JsonHelper jsonHelper,
+                             ReportSnapshotService reportSnapshotService,
+                             @Value("${quickform.import.chunk-size:10000}") int chunkSize,
+                             @Value("${quickform.import.max-errors:100}") int maxErrors) {
+        this.dataSource = dataSource;
+        this.jsonHelper = jsonHelper;
+        this.reportSnapshotService = reportSnapshotService;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public Map<String, Object> importRecords(String pageCode,
+                                             String format,
+                                             String status,
+                                             String operator,
+                                             String importId,
+                                             InputStream input) {
+        if (pageCode == null || !PAGE_CODE_PATTERN.matcher(pageCode).matches()) {
+            throw new BadRequestException("invalid page code");
+        }
+        String normalizedFormat = RowStreamWriter.normalizeFormat(format);
+        String defaultStatus = status == null || status.isBlank() ? "draft" : status.trim();
+        if (!RECORD_STATUSES.contains(defaultStatus)) {
+            throw new BadRequestException("invalid status");
+        }
+        String id = importId == null || importId.isBlank() ? UUID.randomUUID().toString() : importId.trim();
+        if (!IMPORT_ID_PATTERN.matcher(id).matches()) {
+            throw new BadRequestException("invalid importId");
+        }
+        ImportProgress progress = new ImportProgress(id, pageCode, normalizedFormat);
+        if (imports.putIfAbsent(id, progress) != null) {
+            throw new BadRequestException("importId already used");
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            RowSource source = RowStreamWriter.CSV.equals(normalizedFormat)
+                ? new CsvRowSource(reader, defaultStatus)
+                : new NdjsonRowSource(reader, defaultStatus);
+            copyChunks(pgConnection, pageCode, operator, source, progress);
+            progress.finish("done", null);
+        } catch (SQLException | IOException | RuntimeException ex) {
+            progress.finish("failed", ex.getMessage());
+            if (ex instanceof BadRequestException badRequest) {
+                throw badRequest;
+            }
+            // The progress entry stays available through /status.
+            throw new ImportFailedException("import " + id + " failed: " + ex.getMessage(), progress.toMap(), ex);
+        } finally {
+            // Chunks commit as they go, so a failed import may still have changed the page.
+            reportSnapshotService.dataChanged(pageCode);
+        }
+        return progress.toMap();
+    }
+
+    public Map<String, Object> status(String pageCode, String importId) {
+        ImportProgress progress = importId == null ? null : imports.get(importId);
+        if (progress == null || !progress.pageCode.equals(pageCode)) {
+            throw new NotFoundException("import not found");
+        }
+        return progress.toMap();
+    }
+
+    private void copyChunks(PGConnection connection, String pageCode, String operator, RowSource source,
+                            ImportProgress progress) throws SQLException, IOException {
+        ImportRow row = source.next(progress);
+        while (row != null) {
+            // Each chunk is its own COPY and commits on its own, so a failure keeps earlier chunks.
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection, COPY_SQL, COPY_BUFFER_SIZE);
+            long inChunk = 0;
+            try {
+                while (row != null && inChunk < chunkSize) {
+                    copy.write(encodeCopyLine(pageCode, row, operator));
+                    inChunk++;
+                    row = source.next(progress);
+                }
+                long copied = copy.endCopy();
+                progress.imported.addAndGet(copied);
+                progress.chunks.incrementAndGet();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        }
+    }
+
+    private byte[] encodeCopyLine(String pageCode, ImportRow row, String operator) {
+        StringBuilder sb = new StringBuilder(row.dataJson.length() + 64);
+        appendCsv(sb, pageCode).append(',');
+        appendCsv(sb, row.dataJson).append(',');
+        appendCsv(sb, row.status).append(',');
+        appendCsv(sb, operator).append(',');
+        appendCsv(sb, operator).append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private StringBuilder appendCsv(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb;
+        }
+        return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private String validateData(JsonNode node) {
+        if (node == null || !node.isObject()) {
+            return "row must be a JSON object";
+        }
+        // Postgres jsonb rejects NUL characters, which would abort the whole COPY.
+        if (containsNul(node)) {
+            return "unsupported \\u0000 character";
+        }
+        return null;
+    }
+
+    private boolean containsNul(JsonNode node) {
+        if (node.isTextual()) {
+            return node.textValue().indexOf('\u0000') >= 0;
+        }
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getKey().indexOf('\u0000') >= 0 || containsNul(field.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (node.isArray()) {
+            for (JsonNode item : node) {
+                if (containsNul(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String checkStatus(String status) {
+        return RECORD_STATUSES.contains(status) ? null : "invalid status: " + status;
+    }
+
+    private interface RowSource {
+        ImportRow next(ImportProgress progress) throws IOException;
+    }
+
+    private class NdjsonRowSource implements RowSource {
+        private final BufferedReader reader;
+        private final String defaultStatus;
+        private long lineNo;
+
+        private NdjsonRowSource(BufferedReader reader, String defaultStatus) {
+            this.reader = reader;
+            this.defaultStatus = defaultStatus;
+        }
+
+        @Override
+        public ImportRow next(ImportProgress progress) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                progress.read.incrementAndGet();
+                String error;
+                try {
+                    error = validateData(jsonHelper.toTree(trimmed));
+                } catch (RuntimeException ex) {
+                    error = "invalid json";
+                }
+                if (error == null) {
+                    return new ImportRow(trimmed, defaultStatus);
+                }
+                progress.reject(lineNo, error, maxErrors);
+            }
+            return null;
+        }
+    }
+
+    private class CsvRowSource implements RowSource {
+        private final CsvReader reader;
+        private final String defaultStatus;
+        private List<String> header;
+        private long lineNo;
+
+        private CsvRowSource(BufferedReader reader, String defaultStatus) {
+            this.reader = new CsvReader(reader);
+            this.defaultStatus = defaultStatus;
+        }
+
+        @Override
+        public ImportRow next(ImportProgress progress) throws IOException {
+            if (header == null) {
+                header = reader.next();
+                lineNo++;
+                if (header == null) {
+                    return null;
+                }
+            }
+            List<String> cells;
+            while ((cells = reader.next()) != null) {
+                lineNo++;
+                if (cells.size() == 1 && cells.get(0).isEmpty()) {
+                    continue;
+                }
+                progress.read.incrementAndGet();
+                String status = defaultStatus;
+                String dataJson = null;
+                Map<String, Object> data = new LinkedHashMap<>();
+                String error = null;
+                for (int i = 0; i < header.size() && i < cells.size(); i++) {
+                    String column = header.get(i).trim();
+                    String value = cells.get(i);
+                    if ("status".equals(column)) {
+                        status = value.isEmpty() ? defaultStatus : value;
+                    } else if ("data".equals(column)) {
+                        dataJson = value;
+                    } else if (!column.isEmpty()) {
+                        data.put(column, value);
+                        if (column.indexOf('\u0000') >= 0 || value.indexOf('\u0000') >= 0) {
+                            error = "unsupported \\u0000 character";
+                        }
+                    }
+                }
+                if (dataJson != null && error == null) {
+                    try {
+                        error = validateData(jsonHelper.toTree(dataJson));
+                    } catch (RuntimeException ex) {
+                        error = "invalid json";
+                    }
+                } else if (dataJson == null) {
+                    dataJson = jsonHelper.toJson(data);
+                }
+                if (error == null) {
+                    error = checkStatus(status);
+                }
+                if (error == null) {
+                    return new ImportRow(dataJson, status);
+                }
+                progress.reject(lineNo, error, maxErrors);
+            }
+            return null;
+        }
+    }
+
+    private static class CsvReader {
+        private final BufferedReader reader;
+
+        private CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        private List<String> next() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (c >= 0) {
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int peek = reader.read();
+                        if (peek == '"') {
+                            cell.append('"');
+                        } else {
+                            quoted = false;
+                            if (peek >= 0) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        cell.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else if (ch == '\n') {
+                    break;
+                } else if (ch != '\r') {
+                    cell.append(ch);
+                }
+                c = reader.read();
+            }
+            cells.add(cell.toString());
+            return cells;
+        }
+    }
+
+    private static class ImportRow {
+        private final String dataJson;
+        private final String status;
+
+        private ImportRow(String dataJson, String status) {
+            this.dataJson = dataJson;
+            this.status = status;
+        }
+    }
+
+    private static class ImportProgress {
+        private final String importId;
+        private final String pageCode;
+        private final String format;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong chunks = new AtomicLong();
+        private final List<Map<String, Object>> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile String status = "running";
+        private volatile String message;
+        private volatile long finishedAt;
+
+        private ImportProgress(String importId, String pageCode, String format) {
+            this.importId = importId;
+            this.pageCode = pageCode;
+            this.format = format;
+        }
+
+        private void reject(long line, String error, int maxErrors) {
+            rejected.incrementAndGet();
+            if (errors.size() < maxErrors) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("line", line);
+                item.put("message", error);
+                errors.add(item);
+            }
+        }
+
+        private void finish(String status, String message) {
+            this.message = message;
+            this.finishedAt = System.currentTimeMillis();
+            this.status = status;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("importId", importId);
+            result.put("pageCode", pageCode);
+            result.put("format", format);
+            result.put("status", status);
+            result.put("message", message);
+            result.put("rowsRead", read.get());
+            result.put("rowsImported", imported.get());
+            result.put("rowsRejected", rejected.get());
+            result.put("chunks", chunks.get());
+            result.put("elapsedMs", (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt);
+            synchronized (errors) {
+                result.put("errors", new ArrayList<>(errors));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.quickform.api.service;
+
+import com.quickform.api.dto.DataIndexRequest;
+import com.quickform.api.dto.DataQueryRequest;
+import com.quickform.api.dto.Filter;
+import com.quickform.api.dto.Sort;
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.exception.NotFoundException;
+import com.quickform.api.mapper.DataIndexMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+@Service
+public class DataIndexService {
+    private static final Pattern PAGE_CODE_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
+    private static final Set<String> KINDS = Set.of(
+        DataQueryPlanner.KIND_TEXT, DataQueryPlanner.KIND_NUMERIC, DataQueryPlanner.KIND_BOOLEAN);
+    private static final int MAX_TRACKED_FIELDS = 200;
+    private static final int MAX_INDEX_NAME_LENGTH = 63;
+
+    private final DataIndexMapper dataIndexMapper;
+    private final DataQueryPlanner queryPlanner;
+    private final long suggestMinUses;
+    private final Map<String, Map<String, FieldUsage>> usage = new ConcurrentHashMap<>();
+
+    public DataIndexService(DataIndexMapper dataIndexMapper,
+                            DataQueryPlanner queryPlanner,
+                            @Value("${quickform.data.index.suggest-min-uses:100}") long suggestMinUses) {
+        this.dataIndexMapper = dataIndexMapper;
+        this.queryPlanner = queryPlanner;
+        this.suggestMinUses = suggestMinUses;
+    }
+
+    public void recordUsage(String pageCode, DataQueryRequest request) {
+        if (request == null) {
+            return;
+        }
+        recordFilters(pageCode, request.getFilters());
+        recordFilters(pageCode, request.getOrFilters());
+        if (request.getSorts() != null) {
+            for (Sort sort : request.getSorts()) {
+                if (sort != null && queryPlanner.isJsonField(sort.getField())) {
+                    FieldUsage fieldUsage = fieldUsage(pageCode, sort.getField().trim(), DataQueryPlanner.KIND_TEXT);
+                    if (fieldUsage != null) {
+                        fieldUsage.sorts.increment();
+                        fieldUsage.lastUsedAt = System.currentTimeMillis();
+                    }
+                }
+            }
+        }
+    }
+
+    private void recordFilters(String pageCode, List<Filter> filters) {
+        if (filters == null) {
+            return;
+        }
+        for (Filter filter : filters) {
+            if (filter == null || "contains".equalsIgnoreCase(filter.getOp()) || !queryPlanner.isJsonField(filter.getField())
+                || queryPlanner.usesContainment(filter)) {
+                continue;
+            }
+            FieldUsage fieldUsage = fieldUsage(pageCode, filter.getField().trim(), queryPlanner.valueKind(filter.getValue()));
+            if (fieldUsage != null) {
+                fieldUsage.filters.increment();
+                fieldUsage.lastUsedAt = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private FieldUsage fieldUsage(String pageCode, String field, String kind) {
+        Map<String, FieldUsage> fields = usage.computeIfAbsent(pageCode, key -> new ConcurrentHashMap<>());
+        String key = field + ":" + kind;
+        FieldUsage fieldUsage = fields.get(key);
+        if (fieldUsage == null) {
+            if (fields.size() >= MAX_TRACKED_FIELDS) {
+                return null;
+            }
+            fieldUsage = fields.computeIfAbsent(key, k -> new FieldUsage(field, kind));
+        }
+        return fieldUsage;
+    }
+
+    public List<Map<String, Object>> usage(String pageCode) {
+        validatePageCode(pageCode);
+        Set<String> indexed = new HashSet<>();
+        for (Map<String, Object> index : dataIndexMapper.listFieldIndexes(pageCode)) {
+            indexed.add(index.get("field") + ":" + index.get("kind"));
+        }
+        List<FieldUsage> fields = new ArrayList<>(usage.getOrDefault(pageCode, Collections.emptyMap()).values());
+        fields.sort((a, b) -> Long.compare(b.total(), a.total()));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (FieldUsage fieldUsage : fields) {
+            boolean isIndexed = indexed.contains(fieldUsage.field + ":" + fieldUsage.kind);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("field", fieldUsage.field);
+            item.put("kind", fieldUsage.kind);
+            item.put("filters", fieldUsage.filters.sum());
+            item.put("sorts", fieldUsage.sorts.sum());
+            item.put("lastUsedAt", fieldUsage.lastUsedAt);
+            item.put("indexed", isIndexed);
+            item.put("suggested", !isIndexed && fieldUsage.total() >= suggestMinUses);
+            result.add(item);
+        }
+        return result;
+    }
+
+    public List<Map<String, Object>> list(String pageCode) {
+        validatePageCode(pageCode);
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> row : dataIndexMapper.listFieldIndexes(pageCode)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("field", row.get("field"));
+            item.put("kind", row.get("kind"));
+            item.put("indexName", row.get("index_name"));
+            item.put("createdBy", row.get("created_by"));
+            item.put("createdAt", row.get("created_at"));
+            item.put("present", row.get("present"));
+            item.put("valid", row.get("valid"));
+            item.put("scans", row.get("idx_scan"));
+            item.put("tuplesRead", row.get("idx_tup_read"));
+            item.put("sizeBytes", row.get("size_bytes"));
+            item.put("used", ((Number) row.get("idx_scan")).longValue() > 0);
+            result.add(item);
+        }
+        return result;
+    }
+
+    public Map<String, Object> create(String pageCode, DataIndexRequest request) {
+        validatePageCode(pageCode);
+        String field = requireField(request);
+        String kind = normalizeKind(request.getKind());
+        Map<String, Object> existing = dataIndexMapper.getFieldIndex(pageCode, field, kind);
+        String indexName = existing != null ? (String) existing.get("index_name") : indexName(pageCode, field, kind);
+
+        // CONCURRENTLY cannot run inside a transaction, so this relies on the mapper's auto-commit session.
+        String ddl = "CREATE INDEX CONCURRENTLY IF NOT EXISTS \"" + indexName + "\" ON data_record ((" +
+            queryPlanner.jsonFieldExpr(field, kind) + ")) WHERE page_code = '" + pageCode + "'";
+        try {
+            dataIndexMapper.executeDdl(ddl);
+        } catch (RuntimeException ex) {
+            // A failed concurrent build leaves an INVALID index behind.
+            dataIndexMapper.executeDdl("DROP INDEX CONCURRENTLY IF EXISTS \"" + indexName + "\"");
+            throw ex;
+        }
+        dataIndexMapper.insertFieldIndex(pageCode, field, kind, indexName, request.getOperator());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("field", field);
+        result.put("kind", kind);
+        result.put("indexName", indexName);
+        return result;
+    }
+
+    public Map<String, Object> drop(String pageCode, DataIndexRequest request) {
+        validatePageCode(pageCode);
+        String field = requireField(request);
+        String kind = normalizeKind(request.getKind());
+        Map<String, Object> existing = dataIndexMapper.getFieldIndex(pageCode, field, kind);
+        if (existing == null) {
+            throw new NotFoundException("index not found");
+        }
+        String indexName = (String) existing.get("index_name");
+        dataIndexMapper.executeDdl("DROP INDEX CONCURRENTLY IF EXISTS \"" + indexName + "\"");
+        dataIndexMapper.deleteFieldIndex(pageCode, field, kind);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("field", field);
+        result.put("kind", kind);
+        result.put("indexName", indexName);
+        return result;
+    }
+
+    private String requireField(DataIndexRequest request) {
+        if (request == null || request.getField() == null || request.getField().isBlank()) {
+            throw new BadRequestException("field required");
+        }
+        String field = request.getField().trim();
+        if (!queryPlanner.isJsonField(field)) {
+            throw new BadRequestException("invalid field: " + field);
+        }
+        return field;
+    }
+
+    private String normalizeKind(String kind) {
+        String k = kind == null || kind.isBlank() ? DataQueryPlanner.KIND_TEXT : kind.trim().toLowerCase(Locale.ROOT);
+        if (!KINDS.contains(k)) {
+            throw new BadRequestException("invalid kind");
+        }
+        return k;
+    }
+
+    private String indexName(String pageCode, String field, String kind) {
+        String suffix = "_" + kind.charAt(0) + "_" + Integer.toHexString((pageCode + "|" + field + "|" + kind).hashCode());
+        String name = ("idx_dx_" + pageCode + "_" + field).toLowerCase(Locale.ROOT).replace('-', '_');
+        if (name.length() + suffix.length() > MAX_INDEX_NAME_LENGTH) {
+            name = name.substring(0, MAX_INDEX_NAME_LENGTH - suffix.length());
+        }
+        return name + suffix;
+    }
+
+    private void validatePageCode(String pageCode) {
+        if (pageCode == null || !PAGE_CODE_PATTERN.matcher(pageCode).matches()) {
+            throw new BadRequestException("invalid page code");
+        }
+    }
+
+    private static class FieldUsage {
+        private final String field;
+        private final String kind;
+        private final LongAdder filters = new LongAdder();
+        private final LongAdder sorts = new LongAdder();
+        private volatile long lastUsedAt;
+
+        private FieldUsage(String field, String kind) {
+            this.field = field;
+            this.kind = kind;
+        }
+
+        private long total() {
+            return filters.sum() + sorts.sum();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.quickform.api.service;
+
+import com.quickform.api.mapper.CompiledSql;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DataQueryPlan {
+    final DataQueryPlanner.CompiledQuery compiled;
+    private final Map<String, Object> params;
+    private final int page;
+    private final int pageSize;
+
+    DataQueryPlan(DataQueryPlanner.CompiledQuery compiled, Map<String, Object> params, int page, int pageSize) {
+        this.compiled = compiled;
+        this.params = params;
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    public CompiledSql pageSql() {
+        return compiled.pageSql;
+    }
+
+    public CompiledSql streamSql() {
+        return compiled.streamSql;
+    }
+
+    public CompiledSql countSql() {
+        return compiled.countSql;
+    }
+
+    public CompiledSql cappedCountSql() {
+        return compiled.cappedCountSql;
+    }
+
+    public CompiledSql explainSql() {
+        return compiled.explainSql;
+    }
+
+    public Map<String, Object> params() {
+        return params;
+    }
+
+    public Map<String, Object> params(int countLimit) {
+        Map<String, Object> values = new HashMap<>(params);
+        values.put("countLimit", countLimit);
+        return values;
+    }
+
+    public boolean isWithData() {
+        return compiled.withData;
+    }
+
+    /**
+     * The projected data fields, trimmed and deduplicated; empty when the whole data object is selected.
+     */
+    public List<String> getFields() {
+        return compiled.fields;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,653 @@
+package com.quickform.api.service;
+
+import com.quickform.api.dto.DataQueryRequest;
+import com.quickform.api.dto.Filter;
+import com.quickform.api.dto.Sort;
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.mapper.CompiledSql;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+@Component
+public class DataQueryPlanner {
+    public static final String KIND_TEXT = "text";
+    public static final String KIND_NUMERIC = "numeric";
+    public static final String KIND_BOOLEAN = "boolean";
+
+    private static final Pattern FIELD_PATTERN = Pattern.compile("^[a-zA-Z0-9_]+$");
+    private static final int MAX_BUILD_OBJECT_PAIRS = 50;
+    private static final String ARRAY_HANDLER = ",typeHandler=org.apache.ibatis.type.ArrayTypeHandler";
+
+    private final JsonHelper jsonHelper;
+    private final LruCache<List<Object>, CompiledQuery> plans;
+
+    public DataQueryPlanner(JsonHelper jsonHelper,
+                            @Value("${quickform.data.plan-cache-size:512}") int planCacheSize) {
+        this.jsonHelper = jsonHelper;
+        this.plans = new LruCache<>(planCacheSize);
+    }
+
+    public DataQueryPlan plan(String pageCode, DataQueryRequest request) {
+        DataQueryRequest req = request == null ? new DataQueryRequest() : request;
+        String after = req.getAfter() == null || req.getAfter().isBlank() ? null : req.getAfter().trim();
+        CursorToken cursor = after == null ? null : decodeCursor(after);
+
+        CompiledQuery compiled = plans.get(shapeKey(req, cursor), () -> compile(req, cursor));
+        if (cursor != null && (!compiled.signature.equals(cursor.signature) || cursor.values.size() != compiled.sortKeys.size())) {
+            throw new BadRequestException("cursor does not match sorts");
+        }
+
+        int page = req.getPage() != null ? req.getPage() : 1;
+        int pageSize = req.getPageSize() != null ? req.getPageSize() : 20;
+        if (page < 1) page = 1;
+        if (pageSize < 1) pageSize = 20;
+
+        BindContext ctx = new BindContext(pageCode, req, cursor == null ? null : cursor.values, page, pageSize);
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < compiled.slots.size(); i++) {
+            params.put(compiled.slotNames.get(i), compiled.slots.get(i).apply(ctx));
+        }
+        return new DataQueryPlan(compiled, params, page, pageSize);
+    }
+
+    public String encodeCursor(DataQueryPlan plan, Map<String, Object> row) {
+        List<Object> values = new ArrayList<>();
+        for (SortKey key : plan.compiled.sortKeys) {
+            values.add(cursorValue(row.get(key.column)));
+        }
+        Map<String, Object> cursor = new LinkedHashMap<>();
+        cursor.put("s", plan.compiled.signature);
+        cursor.put("v", values);
+        byte[] bytes = jsonHelper.toJson(cursor).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public Map<String, Object> stats() {
+        return plans.stats();
+    }
+
+    /**
+     * Everything compile reads besides bound values, as nested lists. List equality compares element by element,
+     * so unlike a joined string no field name, op or sort value can make two different shapes share a key.
+     */
+    private List<Object> shapeKey(DataQueryRequest req, CursorToken cursor) {
+        List<Object> sorts = new ArrayList<>();
+        if (req.getSorts() != null) {
+            for (Sort sort : req.getSorts()) {
+                sorts.add(sort == null ? null : Arrays.asList(sort.getField(), sort.getOrder()));
+            }
+        }
+        List<Object> cursorNulls = null;
+        if (cursor != null) {
+            cursorNulls = new ArrayList<>();
+            for (Object value : cursor.values) {
+                cursorNulls.add(value == null);
+            }
+        }
+        return Arrays.asList(
+            req.getKeywords() != null && !req.getKeywords().isBlank(),
+            filterShape(req.getFilters()),
+            filterShape(req.getOrFilters()),
+            sorts,
+            req.getFields() == null ? null : new ArrayList<>(req.getFields()),
+            req.getIncludeData(),
+            cursorNulls);
+    }
+
+    private List<Object> filterShape(List<Filter> filters) {
+        List<Object> shape = new ArrayList<>();
+        if (filters != null) {
+            for (Filter filter : filters) {
+                shape.add(filter == null ? null
+                    : Arrays.asList(filter.getField(), filter.getOp(), valueType(filter.getValue())));
+            }
+        }
+        return shape;
+    }
+
+    private char valueType(Object value) {
+        if (value instanceof Number) {
+            return 'n';
+        }
+        if (value instanceof Boolean) {
+            return 'b';
+        }
+        if (value instanceof Map<?, ?>) {
+            return 'o';
+        }
+        if (value instanceof Collection<?> values) {
+            return values.isEmpty() ? 'e' : allContainmentSafe(values) ? 'k' : 'c';
+        }
+        return containmentSafe(value) ? 'j' : 's';
+    }
+
+    private CompiledQuery compile(DataQueryRequest req, CursorToken cursor) {
+        ParamBuilder paramBuilder = new ParamBuilder();
+        List<String> where = new ArrayList<>();
+
+        where.add("page_code = " + paramBuilder.add(ctx -> ctx.pageCode));
+
+        boolean keywords = req.getKeywords() != null && !req.getKeywords().isBlank();
+        if (keywords) {
+            where.add("search_text ILIKE " + paramBuilder.add(ctx -> "%" + ctx.request.getKeywords().trim() + "%"));
+        }
+
+        if (req.getFilters() != null) {
+            for (int i = 0; i < req.getFilters().size(); i++) {
+                int index = i;
+                String condition = buildCondition(req.getFilters().get(i),
+                    ctx -> ctx.request.getFilters().get(index).getValue(), paramBuilder);
+                if (condition != null) {
+                    where.add(condition);
+                }
+            }
+        }
+
+        if (req.getOrFilters() != null && !req.getOrFilters().isEmpty()) {
+            List<String> orParts = new ArrayList<>();
+            for (int i = 0; i < req.getOrFilters().size(); i++) {
+                int index = i;
+                String condition = buildCondition(req.getOrFilters().get(i),
+                    ctx -> ctx.request.getOrFilters().get(index).getValue(), paramBuilder);
+                if (condition != null) {
+                    orParts.add(condition);
+                }
+            }
+            if (!orParts.isEmpty()) {
+                where.add("(" + String.join(" OR ", orParts) + ")");
+            }
+        }
+
+        String whereSql = String.join(" AND ", where);
+        String baseSql = "FROM data_record WHERE " + whereSql;
+
+        List<SortKey> sortKeys = buildSortKeys(req, keywords, paramBuilder);
+        List<String> orderParts = new ArrayList<>();
+        StringBuilder sortColumns = new StringBuilder();
+        for (SortKey key : sortKeys) {
+            orderParts.add(key.expr + (key.desc ? " DESC" : " ASC"));
+            if (!key.column.equals(key.expr)) {
+                sortColumns.append(", ").append(key.expr).append(" AS ").append(key.column);
+            }
+        }
+        String orderSql = " ORDER BY " + String.join(", ", orderParts);
+
+        String dataColumn = buildDataColumn(req.getFields(), req.getIncludeData());
+        String selectSql = "SELECT id, status, created_at, updated_at, created_by, updated_by" +
+            (dataColumn == null ? "" : ", " + dataColumn) + sortColumns + " ";
+
+        String pageSql;
+        String streamSql;
+        if (cursor != null) {
+            if (cursor.values.size() != sortKeys.size()) {
+                throw new BadRequestException("cursor does not match sorts");
+            }
+            String seek = buildSeekCondition(sortKeys, cursor.values, paramBuilder);
+            streamSql = selectSql + baseSql + " AND " + seek + orderSql;
+            pageSql = streamSql + " LIMIT " + paramBuilder.add(ctx -> ctx.pageSize + 1);
+        } else {
+            streamSql = selectSql + baseSql + orderSql;
+            pageSql = streamSql + " LIMIT " + paramBuilder.add(ctx -> ctx.pageSize + 1) +
+                " OFFSET " + paramBuilder.add(ctx -> (ctx.page - 1) * ctx.pageSize);
+        }
+
+        return new CompiledQuery(
+            new CompiledSql(pageSql),
+            new CompiledSql(streamSql),
+            new CompiledSql("SELECT COUNT(1) " + baseSql),
+            new CompiledSql("SELECT COUNT(1) FROM (SELECT 1 " + baseSql + " LIMIT #{params.countLimit}) t"),
+            new CompiledSql("EXPLAIN (FORMAT JSON) SELECT 1 " + baseSql),
+            dataColumn != null,
+            dataColumn == null || req.getFields() == null ? List.of() : List.copyOf(normalizeFields(req.getFields())),
+            sortKeys,
+            sortSignature(sortKeys),
+            paramBuilder.slots);
+    }
+
+    public String buildDataColumn(List<String> fields, Boolean includeData) {
+        if (Boolean.FALSE.equals(includeData)) {
+            return null;
+        }
+        if (fields == null || fields.isEmpty()) {
+            return "data";
+        }
+        Set<String> names = normalizeFields(fields);
+        // jsonb_build_object takes at most 100 arguments, so wide projections are concatenated.
+        List<String> objects = new ArrayList<>();
+        List<String> pairs = new ArrayList<>();
+        for (String name : names) {
+            pairs.add("'" + name + "', data -> '" + name + "'");
+            if (pairs.size() == MAX_BUILD_OBJECT_PAIRS) {
+                objects.add("jsonb_build_object(" + String.join(", ", pairs) + ")");
+                pairs.clear();
+            }
+        }
+        if (!pairs.isEmpty()) {
+            objects.add("jsonb_build_object(" + String.join(", ", pairs) + ")");
+        }
+        return String.join(" || ", objects) + " AS data";
+    }
+
+    private Set<String> normalizeFields(List<String> fields) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields) {
+            String name = field == null ? "" : field.trim();
+            if (!isSafeField(name)) {
+                throw new BadRequestException("invalid field: " + field);
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    private List<SortKey> buildSortKeys(DataQueryRequest request, boolean keywords, ParamBuilder paramBuilder) {
+        List<SortKey> keys = new ArrayList<>();
+        if (request.getSorts() != null) {
+            for (Sort sort : request.getSorts()) {
+                if (sort == null || sort.getField() == null || sort.getField().isBlank()) {
+                    continue;
+                }
+                String order = sort.getOrder() == null ? "ASC" : sort.getOrder().toUpperCase();
+                String expr = resolveExpr(sort.getField());
+                if (expr == null) {
+                    continue;
+                }
+                keys.add(toSortKey(expr, "DESC".equals(order), keys.size()));
+            }
+        }
+        if (keys.isEmpty()) {
+            if (keywords) {
+                String rank = "word_similarity(" + paramBuilder.add(ctx -> ctx.request.getKeywords().trim()) + ", search_text)";
+                keys.add(new SortKey(rank, true, "sort_rank", "::real", false));
+            }
+            keys.add(toSortKey("updated_at", true, keys.size()));
+        }
+        keys.add(new SortKey("id", keys.get(keys.size() - 1).desc, "id", "::uuid", false));
+        return keys;
+    }
+
+    private SortKey toSortKey(String expr, boolean desc, int index) {
+        switch (expr) {
+            case "created_at":
+            case "updated_at":
+                return new SortKey(expr, desc, expr, "::timestamp", false);
+            case "status":
+                return new SortKey(expr, desc, expr, "", false);
+            case "created_by":
+            case "updated_by":
+                return new SortKey(expr, desc, expr, "", true);
+            default:
+                return new SortKey(expr, desc, "sort_" + index, "", true);
+        }
+    }
+
+    private String buildSeekCondition(List<SortKey> keys, List<Object> values, ParamBuilder paramBuilder) {
+        boolean sameDirection = true;
+        boolean nonNull = true;
+        for (int i = 0; i < keys.size(); i++) {
+            sameDirection &= keys.get(i).desc == keys.get(0).desc;
+            nonNull &= !keys.get(i).nullable && values.get(i) != null;
+        }
+        if (sameDirection && nonNull) {
+            List<String> exprs = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                exprs.add(keys.get(i).expr);
+                placeholders.add(cursorParam(i, paramBuilder) + keys.get(i).cast);
+            }
+            return "(" + String.join(", ", exprs) + ") " + (keys.get(0).desc ? "<" : ">") +
+                " (" + String.join(", ", placeholders) + ")";
+        }
+
+        List<String> branches = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String after = seekAfter(keys.get(i), i, values.get(i) == null, paramBuilder);
+            if (after == null) {
+                continue;
+            }
+            List<String> parts = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                parts.add(seekEqual(keys.get(j), j, values.get(j) == null, paramBuilder));
+            }
+            parts.add(after);
+            branches.add("(" + String.join(" AND ", parts) + ")");
+        }
+        if (branches.isEmpty()) {
+            return "FALSE";
+        }
+        return "(" + String.join(" OR ", branches) + ")";
+    }
+
+    private String seekEqual(SortKey key, int index, boolean isNull, ParamBuilder paramBuilder) {
+        if (isNull) {
+            return key.expr + " IS NULL";
+        }
+        return key.expr + " = " + cursorParam(index, paramBuilder) + key.cast;
+    }
+
+    private String seekAfter(SortKey key, int index, boolean isNull, ParamBuilder paramBuilder) {
+        if (isNull) {
+            // ASC puts NULLs last and DESC puts them first.
+            return key.desc ? key.expr + " IS NOT NULL" : null;
+        }
+        String cmp = key.expr + (key.desc ? " < " : " > ") + cursorParam(index, paramBuilder) + key.cast;
+        return key.nullable && !key.desc ? "(" + cmp + " OR " + key.expr + " IS NULL)" : cmp;
+    }
+
+    private String cursorParam(int index, ParamBuilder paramBuilder) {
+        return paramBuilder.add(ctx -> ctx.cursor.get(index));
+    }
+
+    private CursorToken decodeCursor(String after) {
+        Map<String, Object> cursor;
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(after);
+            cursor = jsonHelper.toMap(new String(bytes, StandardCharsets.UTF_8));
+        } catch (RuntimeException ex) {
+            throw new BadRequestException("invalid cursor");
+        }
+        if (!(cursor.get("s") instanceof String signature) || !(cursor.get("v") instanceof List<?> values)) {
+            throw new BadRequestException("invalid cursor");
+        }
+        return new CursorToken(signature, new ArrayList<>(values));
+    }
+
+    private Object cursorValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+
+    private String sortSignature(List<SortKey> keys) {
+        StringBuilder sb = new StringBuilder();
+        for (SortKey key : keys) {
+            sb.append(key.expr).append(key.desc ? ":d;" : ":a;");
+        }
+        return sb.toString();
+    }
+
+    private String buildCondition(Filter filter, Function<BindContext, Object> value, ParamBuilder paramBuilder) {
+        if (filter == null || filter.getField() == null || filter.getField().isBlank()) {
+            return null;
+        }
+        String op = filter.getOp() == null ? "eq" : filter.getOp().toLowerCase();
+        String field = filter.getField();
+
+        if ("contains".equals(op)) {
+            if (!isSafeField(field)) {
+                return null;
+            }
+            if (filter.getValue() instanceof Map<?, ?> || filter.getValue() instanceof Collection<?>) {
+                // Same result as data -> f @> v for objects and arrays, but served by the GIN index.
+                return "data @> " + paramBuilder.add(ctx -> containmentJson(field, value.apply(ctx))) + "::jsonb";
+            }
+            String fieldParam = paramBuilder.add(ctx -> field);
+            String valueParam = paramBuilder.add(ctx -> jsonHelper.toJson(value.apply(ctx)));
+            return "data -> " + fieldParam + " @> " + valueParam + "::jsonb";
+        }
+
+        String expr = resolveExpr(field);
+        if (expr == null) {
+            return null;
+        }
+
+        String typedExpr = typedExpr(expr, valueKind(filter.getValue()));
+        String name = field.trim();
+
+        switch (op) {
+            case "eq":
+                if (isJsonField(name) && containmentSafe(filter.getValue())) {
+                    return "data @> " + paramBuilder.add(ctx -> containmentJson(name, value.apply(ctx))) + "::jsonb";
+                }
+                return typedExpr + " = " + paramBuilder.add(value);
+            case "ne":
+                return typedExpr + " <> " + paramBuilder.add(value);
+            case "like":
+                return expr + " ILIKE " + paramBuilder.add(ctx -> "%" + String.valueOf(value.apply(ctx)) + "%");
+            case "gt":
+                return typedExpr + " > " + paramBuilder.add(value);
+            case "gte":
+                return typedExpr + " >= " + paramBuilder.add(value);
+            case "lt":
+                return typedExpr + " < " + paramBuilder.add(value);
+            case "lte":
+                return typedExpr + " <= " + paramBuilder.add(value);
+            case "in":
+                if (filter.getValue() instanceof Collection<?> values && !values.isEmpty()) {
+                    if (isJsonField(name) && allContainmentSafe(values)) {
+                        return "data @> ANY(" + paramBuilder.addArray(ctx -> containmentArray(name, value.apply(ctx))) +
+                            "::jsonb[])";
+                    }
+                    // One array parameter keeps the statement text stable for any list length.
+                    return expr + " = ANY(" + paramBuilder.addArray(ctx -> toTextArray(value.apply(ctx))) + "::text[])";
+                }
+                return null;
+            default:
+                return typedExpr + " = " + paramBuilder.add(value);
+        }
+    }
+
+    public boolean usesContainment(Filter filter) {
+        if (filter == null || !isJsonField(filter.getField())) {
+            return false;
+        }
+        String op = filter.getOp() == null ? "eq" : filter.getOp().toLowerCase();
+        if ("eq".equals(op)) {
+            return containmentSafe(filter.getValue());
+        }
+        return "in".equals(op) && filter.getValue() instanceof Collection<?> values && !values.isEmpty()
+            && allContainmentSafe(values);
+    }
+
+    // data ->> f = 'v' equals data @> {"f": "v"} only when no non-string JSON value renders as 'v'.
+    private boolean containmentSafe(Object value) {
+        if (!(value instanceof String s) || s.isEmpty()) {
+            return false;
+        }
+        char first = s.charAt(0);
+        if (first == '{' || first == '[' || first == '-' || first == '.' || Character.isDigit(first)) {
+            return false;
+        }
+        return !"true".equals(s) && !"false".equals(s) && !"null".equals(s);
+    }
+
+    private boolean allContainmentSafe(Collection<?> values) {
+        for (Object item : values) {
+            if (!containmentSafe(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String containmentJson(String field, Object value) {
+        return jsonHelper.toJson(Map.of(field, value));
+    }
+
+    private String[] containmentArray(String field, Object value) {
+        Collection<?> values = (Collection<?>) value;
+        String[] result = new String[values.size()];
+        int i = 0;
+        for (Object item : values) {
+            result[i++] = containmentJson(field, item);
+        }
+        return result;
+    }
+
+    private String[] toTextArray(Object value) {
+        Collection<?> values = (Collection<?>) value;
+        String[] result = new String[values.size()];
+        int i = 0;
+        for (Object item : values) {
+            result[i++] = item == null ? null : item.toString();
+        }
+        return result;
+    }
+
+    public String valueKind(Object value) {
+        if (value instanceof Number) {
+            return KIND_NUMERIC;
+        }
+        if (value instanceof Boolean) {
+            return KIND_BOOLEAN;
+        }
+        return KIND_TEXT;
+    }
+
+    public boolean isJsonField(String field) {
+        String expr = resolveExpr(field);
+        return expr != null && expr.startsWith("data ->> ");
+    }
+
+    public String jsonFieldExpr(String field, String kind) {
+        if (!isJsonField(field)) {
+            throw new BadRequestException("invalid field: " + field);
+        }
+        return typedExpr(resolveExpr(field), kind);
+    }
+
+    private String typedExpr(String expr, String kind) {
+        switch (kind) {
+            case KIND_NUMERIC:
+                return "NULLIF(" + expr + ", '')::numeric";
+            case KIND_BOOLEAN:
+                return "NULLIF(" + expr + ", '')::boolean";
+            default:
+                return expr;
+        }
+    }
+
+    private String resolveExpr(String field) {
+        if (field == null) {
+            return null;
+        }
+        String f = field.trim();
+        if (f.isEmpty()) {
+            return null;
+        }
+        switch (f) {
+            case "status":
+                return "status";
+            case "createdAt":
+            case "created_at":
+                return "created_at";
+            case "updatedAt":
+            case "updated_at":
+                return "updated_at";
+            case "createdBy":
+            case "created_by":
+                return "created_by";
+            case "updatedBy":
+            case "updated_by":
+                return "updated_by";
+            default:
+                if (!isSafeField(f)) {
+                    return null;
+                }
+                return "data ->> '" + f + "'";
+        }
+    }
+
+    private boolean isSafeField(String field) {
+        return FIELD_PATTERN.matcher(field).matches();
+    }
+
+    private static class ParamBuilder {
+        private final List<Function<BindContext, Object>> slots = new ArrayList<>();
+
+        private String add(Function<BindContext, Object> slot) {
+            slots.add(slot);
+            return "#{params.p" + (slots.size() - 1) + "}";
+        }
+
+        private String addArray(Function<BindContext, Object> slot) {
+            slots.add(slot);
+            return "#{params.p" + (slots.size() - 1) + ARRAY_HANDLER + "}";
+        }
+    }
+
+    private static class BindContext {
+        private final String pageCode;
+        private final DataQueryRequest request;
+        private final List<Object> cursor;
+        private final int page;
+        private final int pageSize;
+
+        private BindContext(String pageCode, DataQueryRequest request, List<Object> cursor, int page, int pageSize) {
+            this.pageCode = pageCode;
+            this.request = request;
+            this.cursor = cursor;
+            this.page = page;
+            this.pageSize = pageSize;
+        }
+    }
+
+    private static class CursorToken {
+        private final String signature;
+        private final List<Object> values;
+
+        private CursorToken(String signature, List<Object> values) {
+            this.signature = signature;
+            this.values = values;
+        }
+    }
+
+    static class CompiledQuery {
+        final CompiledSql pageSql;
+        final CompiledSql streamSql;
+        final CompiledSql countSql;
+        final CompiledSql cappedCountSql;
+        final CompiledSql explainSql;
+        final boolean withData;
+        final List<String> fields;
+        private final List<SortKey> sortKeys;
+        private final String signature;
+        private final List<Function<BindContext, Object>> slots;
+        private final List<String> slotNames;
+
+        private CompiledQuery(CompiledSql pageSql, CompiledSql streamSql, CompiledSql countSql,
+                              CompiledSql cappedCountSql, CompiledSql explainSql, boolean withData,
+                              List<String> fields, List<SortKey> sortKeys, String signature, List<Function<BindContext, Object>> slots) {
+            this.pageSql = pageSql;
+            this.streamSql = streamSql;
+            this.countSql = countSql;
+            this.cappedCountSql = cappedCountSql;
+            this.explainSql = explainSql;
+            this.withData = withData;
+            this.fields = fields;
+            this.sortKeys = sortKeys;
+            this.signature = signature;
+            this.slots = slots;
+            this.slotNames = new ArrayList<>();
+            for (int i = 0; i < slots.size(); i++) {
+                slotNames.add("p" + i);
+            }
+        }
+    }
+
+    private static class SortKey {
+        private final String expr;
+        private final boolean desc;
+        private final String column;
+        private final String cast;
+        private final boolean nullable;
+
+        private SortKey(String expr, boolean desc, String column, String cast, boolean nullable) {
+            this.expr = expr;
+            this.desc = desc;
+            this.column = column;
+            this.cast = cast;
+            this.nullable = nullable;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.quickform.api.service;
+
+import com.quickform.api.dto.DataSearchConfigRequest;
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.mapper.DataSearchMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+@Service
+public class DataSearchService {
+    private static final Logger log = LoggerFactory.getLogger(DataSearchService.class);
+    private static final Pattern PAGE_CODE_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
+    private static final Pattern FIELD_PATTERN = Pattern.compile("^[a-zA-Z0-9_]+$");
+
+    private final DataSearchMapper dataSearchMapper;
+    private final JsonHelper jsonHelper;
+    private final int rebuildChunkSize;
+    private final boolean backfill;
+    private volatile boolean running;
+    private Thread backfiller;
+
+    public DataSearchService(DataSearchMapper dataSearchMapper,
+                             JsonHelper jsonHelper,
+                             @Value("${quickform.data.search.rebuild-chunk-size:5000}") int rebuildChunkSize,
+                             @Value("${quickform.data.search.backfill:true}") boolean backfill) {
+        this.dataSearchMapper = dataSearchMapper;
+        this.jsonHelper = jsonHelper;
+        this.rebuildChunkSize = rebuildChunkSize;
+        this.backfill = backfill;
+    }
+
+    public Map<String, Object> getConfig(String pageCode) {
+        validatePageCode(pageCode);
+        Map<String, Object> row = dataSearchMapper.getConfig(pageCode);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pageCode", pageCode);
+        result.put("fields", row == null ? null : jsonHelper.toObject((String) row.get("fields_json"), List.class));
+        result.put("updatedAt", row == null ? null : row.get("updated_at"));
+        return result;
+    }
+
+    public Map<String, Object> saveConfig(String pageCode, DataSearchConfigRequest request) {
+        validatePageCode(pageCode);
+        if (request == null || request.getFields() == null || request.getFields().isEmpty()) {
+            dataSearchMapper.deleteConfig(pageCode);
+        } else {
+            Set<String> fields = new LinkedHashSet<>();
+            for (String field : request.getFields()) {
+                String name = field == null ? "" : field.trim();
+                if (!FIELD_PATTERN.matcher(name).matches()) {
+                    throw new BadRequestException("invalid field: " + field);
+                }
+                fields.add(name);
+            }
+            dataSearchMapper.saveConfig(pageCode, fields.toArray(new String[0]));
+        }
+        Map<String, Object> result = getConfig(pageCode);
+        result.putAll(rebuild(pageCode));
+        return result;
+    }
+
+    public Map<String, Object> rebuild(String pageCode) {
+        validatePageCode(pageCode);
+        long rows = 0;
+        int chunks = 0;
+        UUID afterId = null;
+        // Each chunk commits on its own so a large page code never holds one long-running update.
+        while (true) {
+            Map<String, Object> chunk = dataSearchMapper.rebuildChunk(pageCode, afterId, rebuildChunkSize);
+            long updated = chunk == null || chunk.get("rows") == null ? 0 : ((Number) chunk.get("rows")).longValue();
+            if (updated == 0) {
+                break;
+            }
+            rows += updated;
+            chunks++;
+            afterId = (UUID) chunk.get("last_id");
+            if (updated < rebuildChunkSize) {
+                break;
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rebuiltRows", rows);
+        result.put("rebuiltChunks", chunks);
+        return result;
+    }
+
+    /**
+     * Fills search_text for rows written before the column existed, which keyword search would otherwise miss.
+     */
+    @PostConstruct
+    public void start() {
+        if (!backfill) {
+            return;
+        }
+        running = true;
+        backfiller = new Thread(this::backfillMissing, "data-search-backfill");
+        backfiller.setDaemon(true);
+        backfiller.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (backfiller != null) {
+            backfiller.interrupt();
+        }
+    }
+
+    private void backfillMissing() {
+        long rows = 0;
+        try {
+            int updated;
+            do {
+                updated = dataSearchMapper.backfillChunk(rebuildChunkSize);
+                rows += updated;
+            } while (updated > 0 && running);
+        } catch (RuntimeException ex) {
+            if (running) {
+                log.warn("search_text backfill stopped after {} rows, retried on next start: {}", rows, ex.getMessage());
+            }
+            return;
+        }
+        if (rows > 0) {
+            log.info("search_text backfilled for {} rows", rows);
+        }
+    }
+
+    private void validatePageCode(String pageCode) {
+        if (pageCode == null || !PAGE_CODE_PATTERN.matcher(pageCode).matches()) {
+            throw new BadRequestException("invalid page code");
+        }
+    }
+}
@@ -4,45 +4,77 @@ import com.quickform.api.dto.*;
 import com.quickform.api.exception.BadRequestException;
 import com.quickform.api.exception.NotFoundException;
 import com.quickform.api.mapper.DataMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 @Service
 public class DataService {
     private final DataMapper dataMapper;
     private final JsonHelper jsonHelper;
-    private static final Pattern FIELD_PATTERN = Pattern.compile("^[a-zA-Z0-9_]+$");
+    private final TotalCounter totalCounter;
+    private final DataQueryPlanner queryPlanner;
+    private final DataIndexService dataIndexService;
+    private final ReportSnapshotService reportSnapshotService;
+    private final int batchMaxSize;
     private static final Pattern PAGE_CODE_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
-
-    public DataService(DataMapper dataMapper, JsonHelper jsonHelper) {
+    private static final Set<String> RECORD_STATUSES = Set.of("draft", "submitted", "approved", "rejected");
+
+    public DataService(DataMapper dataMapper,
+                       JsonHelper jsonHelper,
+                       TotalCounter totalCounter,
+                       DataQueryPlanner queryPlanner,
+                       DataIndexService dataIndexService,
+                       ReportSnapshotService reportSnapshotService,
+                       @Value("${quickform.data.batch-max-size:1000}") int batchMaxSize) {
         this.dataMapper = dataMapper;
         this.jsonHelper = jsonHelper;
+        this.totalCounter = totalCounter;
+        this.queryPlanner = queryPlanner;
+        this.dataIndexService = dataIndexService;
+        this.reportSnapshotService = reportSnapshotService;
+        this.batchMaxSize = batchMaxSize;
     }
 
     public PageResult<Map<String, Object>> query(String pageCode, DataQueryRequest request) {
         validatePageCode(pageCode);
-        QuerySql querySql = buildQuerySql(pageCode, request);
-        long total = dataMapper.count(querySql.countSql, querySql.params);
-        List<Map<String, Object>> rows = dataMapper.query(querySql.pageSql, querySql.params);
+        DataQueryPlan plan = queryPlanner.plan(pageCode, request);
+        dataIndexService.recordUsage(pageCode, request);
+        TotalCounter.Total total = totalCounter.count(
+            request == null ? null : request.getTotalMode(),
+            request == null ? null : request.getTotalCap(),
+            () -> dataMapper.count(plan.countSql(), plan.params()),
+            limit -> dataMapper.count(plan.cappedCountSql(), plan.params(limit)),
+            () -> dataMapper.explain(plan.explainSql(), plan.params()));
+        List<Map<String, Object>> rows = dataMapper.query(plan.pageSql(), plan.params());
+
+        boolean hasMore = rows.size() > plan.getPageSize();
+        if (hasMore) {
+            rows = rows.subList(0, plan.getPageSize());
+        }
 
+        boolean raw = request != null && Boolean.TRUE.equals(request.getRawData());
         List<Map<String, Object>> items = new ArrayList<>();
         for (Map<String, Object> row : rows) {
-            Map<String, Object> item = new LinkedHashMap<>();
-            item.put("id", row.get("id"));
-            item.put("status", row.get("status"));
-            item.put("createdAt", row.get("created_at"));
-            item.put("updatedAt", row.get("updated_at"));
-            item.put("createdBy", row.get("created_by"));
-            item.put("updatedBy", row.get("updated_by"));
-            item.put("data", jsonHelper.toMap(row.get("data")));
-            items.add(item);
-        }
-
-        int page = querySql.page;
-        int pageSize = querySql.pageSize;
-        return new PageResult<>(items, total, page, pageSize);
+            items.add(toItem(row, plan.isWithData(), raw));
+        }
+
+        PageResult<Map<String, Object>> result = total.toPageResult(items, plan.getPage(), plan.getPageSize());
+        if (hasMore) {
+            result.setNextCursor(queryPlanner.encodeCursor(plan, rows.get(rows.size() - 1)));
+        }
+        return result;
     }
 
     public UUID create(String pageCode, DataWriteRequest request) {
@@ -52,7 +84,9 @@ public class DataService {
         }
         String dataJson = jsonHelper.toJson(request.getData());
         String status = request.getStatus() == null ? "draft" : request.getStatus();
-        return dataMapper.createRecord(pageCode, dataJson, status, request.getOperator());
+        UUID id = dataMapper.createRecord(pageCode, dataJson, status, request.getOperator());
+        reportSnapshotService.dataChanged(pageCode);
+        return id;
     }
 
     public int update(String pageCode, UUID id, DataWriteRequest request) {
@@ -61,233 +95,302 @@ public class DataService {
             throw new BadRequestException("data required");
         }
         String dataJson = jsonHelper.toJson(request.getData());
-        return dataMapper.updateRecord(id, pageCode, dataJson, request.getStatus(), request.getOperator());
+        int updated = dataMapper.updateRecord(id, pageCode, dataJson, request.getStatus(), request.getOperator());
+        if (updated > 0) {
+            reportSnapshotService.dataChanged(pageCode);
+        }
+        return updated;
     }
 
     public int delete(String pageCode, UUID id) {
         validatePageCode(pageCode);
-        return dataMapper.deleteRecord(id, pageCode);
+        int deleted = dataMapper.deleteRecord(id, pageCode);
+        if (deleted > 0) {
+            reportSnapshotService.dataChanged(pageCode);
+        }
+        return deleted;
     }
 
-    public Map<String, Object> get(String pageCode, UUID id) {
+    @Transactional
+    public Map<String, Object> batch(String pageCode, DataBatchRequest request) {
         validatePageCode(pageCode);
-        Map<String, Object> row = dataMapper.getRecord(id, pageCode);
-        if (row == null) {
-            throw new NotFoundException("record not found");
+        if (request == null || request.getOperations() == null || request.getOperations().isEmpty()) {
+            throw new BadRequestException("operations required");
         }
-        Map<String, Object> item = new LinkedHashMap<>();
-        item.put("id", row.get("id"));
-        item.put("status", row.get("status"));
-        item.put("createdAt", row.get("created_at"));
-        item.put("updatedAt", row.get("updated_at"));
-        item.put("createdBy", row.get("created_by"));
-        item.put("updatedBy", row.get("updated_by"));
-        item.put("data", jsonHelper.toMap(row.get("data")));
-        return item;
-    }
-
-    private void validatePageCode(String pageCode) {
-        if (pageCode == null || pageCode.isBlank()) {
-            throw new BadRequestException("page code required");
+        List<DataBatchOperation> operations = request.getOperations();
+        if (operations.size() > batchMaxSize) {
+            throw new BadRequestException("batch size exceeds " + batchMaxSize);
         }
-        if (!PAGE_CODE_PATTERN.matcher(pageCode).matches()) {
-            throw new BadRequestException("invalid page code");
+        boolean stopOnError = request.getStopOnError() == null || request.getStopOnError();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        BatchGroup creates = new BatchGroup();
+        BatchGroup updates = new BatchGroup();
+        BatchGroup deletes = new BatchGroup();
+        Set<UUID> touched = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            DataBatchOperation operation = operations.get(i);
+            String op = operation == null || operation.getOp() == null ? null : operation.getOp().trim().toLowerCase(Locale.ROOT);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            result.put("op", op);
+            results.add(result);
+
+            String error = validateBatchOperation(op, operation, touched);
+            if (error != null) {
+                markFailed(result, error, stopOnError);
+                continue;
+            }
+            String operator = operation.getOperator() != null ? operation.getOperator() : request.getOperator();
+            switch (op) {
+                case "create": {
+                    UUID id = UUID.randomUUID();
+                    result.put("id", id);
+                    String status = operation.getStatus() == null ? "draft" : operation.getStatus();
+                    creates.add(i, id, jsonHelper.toJson(operation.getData()), status, operator);
+                    break;
+                }
+                case "update":
+                    result.put("id", operation.getId());
+                    updates.add(i, operation.getId(), jsonHelper.toJson(operation.getData()), operation.getStatus(), operator);
+                    break;
+                default:
+                    result.put("id", operation.getId());
+                    deletes.add(i, operation.getId(), null, null, null);
+                    break;
+            }
         }
-    }
-
-    private QuerySql buildQuerySql(String pageCode, DataQueryRequest request) {
-        ParamBuilder paramBuilder = new ParamBuilder();
-        List<String> where = new ArrayList<>();
 
-        where.add("page_code = " + paramBuilder.add(pageCode));
+        runBatchGroup(results, creates, group -> dataMapper.createRecords(pageCode, group.ids(), group.dataJsons(),
+            group.statuses(), group.operators()), stopOnError);
+        runBatchGroup(results, updates, group -> dataMapper.updateRecords(pageCode, group.ids(), group.dataJsons(),
+            group.statuses(), group.operators()), stopOnError);
+        runBatchGroup(results, deletes, group -> dataMapper.deleteRecords(pageCode, group.ids()), stopOnError);
 
-        if (request != null && request.getKeywords() != null && !request.getKeywords().isBlank()) {
-            where.add("data::text ILIKE " + paramBuilder.add("%" + request.getKeywords().trim() + "%"));
+        int succeeded = 0;
+        for (Map<String, Object> result : results) {
+            if (Boolean.TRUE.equals(result.get("success"))) {
+                succeeded++;
+            }
+        }
+        if (succeeded > 0) {
+            reportSnapshotService.dataChanged(pageCode);
         }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", results.size());
+        summary.put("succeeded", succeeded);
+        summary.put("failed", results.size() - succeeded);
+        summary.put("items", results);
+        return summary;
+    }
 
-        if (request != null && request.getFilters() != null) {
-            for (Filter filter : request.getFilters()) {
-                String condition = buildCondition(filter, paramBuilder);
-                if (condition != null) {
-                    where.add(condition);
-                }
+    private String validateBatchOperation(String op, DataBatchOperation operation, Set<UUID> touched) {
+        if (op == null) {
+            return "op required";
+        }
+        if (!"create".equals(op) && !"update".equals(op) && !"delete".equals(op)) {
+            return "invalid op: " + op;
+        }
+        if (!"delete".equals(op) && operation.getData() == null) {
+            return "data required";
+        }
+        if (operation.getStatus() != null && !RECORD_STATUSES.contains(operation.getStatus())) {
+            return "invalid status: " + operation.getStatus();
+        }
+        if (!"create".equals(op)) {
+            if (operation.getId() == null) {
+                return "id required";
+            }
+            if (!touched.add(operation.getId())) {
+                return "duplicate id in batch";
             }
         }
+        return null;
+    }
 
-        if (request != null && request.getOrFilters() != null && !request.getOrFilters().isEmpty()) {
-            List<String> orParts = new ArrayList<>();
-            for (Filter filter : request.getOrFilters()) {
-                String condition = buildCondition(filter, paramBuilder);
-                if (condition != null) {
-                    orParts.add(condition);
-                }
-            }
-            if (!orParts.isEmpty()) {
-                where.add("(" + String.join(" OR ", orParts) + ")");
+    /**
+     * Without stopOnError a database error (e.g. a delete blocked by a foreign key) must only fail its own item,
+     * but it aborts the whole multi-row statement. The group therefore runs under a savepoint and, if it fails,
+     * is retried one item per savepoint.
+     */
+    private void runBatchGroup(List<Map<String, Object>> results, BatchGroup group,
+                               Function<BatchGroup, List<UUID>> writer, boolean stopOnError) {
+        if (group.isEmpty()) {
+            return;
+        }
+        if (stopOnError) {
+            applyBatchResult(results, group, writer.apply(group), true);
+            return;
+        }
+        TransactionStatus transaction = TransactionAspectSupport.currentTransactionStatus();
+        Object savepoint = transaction.createSavepoint();
+        try {
+            List<UUID> applied = writer.apply(group);
+            transaction.releaseSavepoint(savepoint);
+            applyBatchResult(results, group, applied, false);
+            return;
+        } catch (DataAccessException ex) {
+            transaction.rollbackToSavepoint(savepoint);
+        }
+        for (int i = 0; i < group.indexes.size(); i++) {
+            BatchGroup item = group.item(i);
+            Object itemSavepoint = transaction.createSavepoint();
+            try {
+                List<UUID> applied = writer.apply(item);
+                transaction.releaseSavepoint(itemSavepoint);
+                applyBatchResult(results, item, applied, false);
+            } catch (DataAccessException ex) {
+                transaction.rollbackToSavepoint(itemSavepoint);
+                markFailed(results.get(item.indexes.get(0)), databaseError(ex), false);
             }
         }
+    }
 
-        String whereSql = String.join(" AND ", where);
-        String baseSql = "FROM data_record WHERE " + whereSql;
+    private String databaseError(DataAccessException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        if (message == null) {
+            return "database error";
+        }
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
 
-        StringBuilder orderSql = new StringBuilder();
-        if (request != null && request.getSorts() != null && !request.getSorts().isEmpty()) {
-            List<String> parts = new ArrayList<>();
-            for (Sort sort : request.getSorts()) {
-                if (sort.getField() == null || sort.getField().isBlank()) {
-                    continue;
-                }
-                String order = sort.getOrder() == null ? "ASC" : sort.getOrder().toUpperCase();
-                if (!order.equals("ASC") && !order.equals("DESC")) {
-                    order = "ASC";
-                }
-                String expr = resolveExpr(sort.getField());
-                if (expr == null) {
-                    continue;
-                }
-                parts.add(expr + " " + order);
-            }
-            if (!parts.isEmpty()) {
-                orderSql.append(" ORDER BY ").append(String.join(", ", parts));
+    private void applyBatchResult(List<Map<String, Object>> results, BatchGroup group, List<UUID> applied,
+                                  boolean stopOnError) {
+        Set<UUID> appliedIds = new HashSet<>(applied);
+        for (int i = 0; i < group.indexes.size(); i++) {
+            Map<String, Object> result = results.get(group.indexes.get(i));
+            if (appliedIds.contains(group.ids.get(i))) {
+                result.put("success", true);
+            } else {
+                markFailed(result, "record not found", stopOnError);
             }
-        } else {
-            orderSql.append(" ORDER BY updated_at DESC");
         }
+    }
 
-        int page = request != null && request.getPage() != null ? request.getPage() : 1;
-        int pageSize = request != null && request.getPageSize() != null ? request.getPageSize() : 20;
-        if (page < 1) page = 1;
-        if (pageSize < 1) pageSize = 20;
-        int offset = (page - 1) * pageSize;
-
-        String countSql = "SELECT COUNT(1) " + baseSql;
-        String pageSql = "SELECT id, status, created_at, updated_at, created_by, updated_by, data " + baseSql + orderSql +
-            " LIMIT " + paramBuilder.add(pageSize) + " OFFSET " + paramBuilder.add(offset);
+    private void markFailed(Map<String, Object> result, String message, boolean stopOnError) {
+        if (stopOnError) {
+            throw new BadRequestException("operation " + result.get("index") + ": " + message);
+        }
+        result.put("success", false);
+        result.put("message", message);
+    }
 
-        return new QuerySql(countSql, pageSql, paramBuilder.params, page, pageSize);
+    public Map<String, Object> get(String pageCode, UUID id, DataGetRequest request) {
+        validatePageCode(pageCode);
+        String dataColumn = queryPlanner.buildDataColumn(
+            request == null ? null : request.getFields(),
+            request == null ? null : request.getIncludeData());
+        Map<String, Object> row = dataMapper.getRecord(id, pageCode, dataColumn == null ? "" : ", " + dataColumn);
+        if (row == null) {
+            throw new NotFoundException("record not found");
+        }
+        boolean raw = request != null && Boolean.TRUE.equals(request.getRawData());
+        return toItem(row, dataColumn != null, raw);
     }
 
-    private String buildCondition(Filter filter, ParamBuilder paramBuilder) {
-        if (filter == null || filter.getField() == null || filter.getField().isBlank()) {
-            return null;
+    @Transactional(readOnly = true)
+    public void export(String pageCode, DataQueryRequest request, String format, OutputStream out) {
+        validatePageCode(pageCode);
+        String normalizedFormat = RowStreamWriter.normalizeFormat(format);
+        DataQueryPlan plan = queryPlanner.plan(pageCode, request);
+        dataIndexService.recordUsage(pageCode, request);
+        List<String> fields = plan.getFields();
+        boolean csv = RowStreamWriter.CSV.equals(normalizedFormat);
+
+        List<String> columns = new ArrayList<>(List.of("id", "status", "createdAt", "updatedAt", "createdBy", "updatedBy"));
+        if (csv && !fields.isEmpty()) {
+            columns.addAll(fields);
+        } else if (plan.isWithData()) {
+            columns.add("data");
         }
-        String op = filter.getOp() == null ? "eq" : filter.getOp().toLowerCase();
-        String field = filter.getField();
 
-        if ("contains".equals(op)) {
-            if (!isSafeField(field)) {
-                return null;
-            }
-            String fieldParam = paramBuilder.add(field);
-            String valueParam = paramBuilder.add(jsonHelper.toJson(filter.getValue()));
-            return "data -> " + fieldParam + " @> " + valueParam + "::jsonb";
-        }
-
-        String expr = resolveExpr(field);
-        if (expr == null) {
-            return null;
-        }
-
-        boolean numeric = filter.getValue() instanceof Number;
-        boolean boolVal = filter.getValue() instanceof Boolean;
-        String typedExpr = expr;
-        if (numeric) {
-            typedExpr = "NULLIF(" + expr + ", '')::numeric";
-        } else if (boolVal) {
-            typedExpr = "NULLIF(" + expr + ", '')::boolean";
-        }
-
-        switch (op) {
-            case "eq":
-                return typedExpr + " = " + paramBuilder.add(filter.getValue());
-            case "ne":
-                return typedExpr + " <> " + paramBuilder.add(filter.getValue());
-            case "like":
-                return expr + " ILIKE " + paramBuilder.add("%" + String.valueOf(filter.getValue()) + "%");
-            case "gt":
-                return typedExpr + " > " + paramBuilder.add(filter.getValue());
-            case "gte":
-                return typedExpr + " >= " + paramBuilder.add(filter.getValue());
-            case "lt":
-                return typedExpr + " < " + paramBuilder.add(filter.getValue());
-            case "lte":
-                return typedExpr + " <= " + paramBuilder.add(filter.getValue());
-            case "in":
-                if (filter.getValue() instanceof Collection) {
-                    Collection<?> values = (Collection<?>) filter.getValue();
-                    if (!values.isEmpty()) {
-                        List<String> placeholders = new ArrayList<>();
-                        for (Object value : values) {
-                            placeholders.add(paramBuilder.add(value));
-                        }
-                        return typedExpr + " IN (" + String.join(",", placeholders) + ")";
+        RowStreamWriter writer = RowStreamWriter.create(normalizedFormat, out, columns, jsonHelper);
+        try (Cursor<Map<String, Object>> cursor = dataMapper.queryCursor(plan.streamSql(), plan.params())) {
+            for (Map<String, Object> row : cursor) {
+                if (csv && !fields.isEmpty()) {
+                    Map<String, Object> item = toItem(row, false, false);
+                    Map<String, Object> data = jsonHelper.toMap(row.get("data"));
+                    for (String field : fields) {
+                        item.put(field, data.get(field));
                     }
+                    writer.write(item);
+                } else {
+                    writer.write(toItem(row, plan.isWithData(), true));
                 }
-                return null;
-            default:
-                return typedExpr + " = " + paramBuilder.add(filter.getValue());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
+        writer.finish();
     }
 
-    private String resolveExpr(String field) {
-        if (field == null) {
-            return null;
-        }
-        String f = field.trim();
-        if (f.isEmpty()) {
-            return null;
-        }
-        switch (f) {
-            case "status":
-                return "status";
-            case "createdAt":
-            case "created_at":
-                return "created_at";
-            case "updatedAt":
-            case "updated_at":
-                return "updated_at";
-            case "createdBy":
-            case "created_by":
-                return "created_by";
-            case "updatedBy":
-            case "updated_by":
-                return "updated_by";
-            default:
-                if (!isSafeField(f)) {
-                    return null;
-                }
-                return "data ->> '" + f + "'";
+    private Map<String, Object> toItem(Map<String, Object> row, boolean withData, boolean raw) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", row.get("id"));
+        item.put("status", row.get("status"));
+        item.put("createdAt", row.get("created_at"));
+        item.put("updatedAt", row.get("updated_at"));
+        item.put("createdBy", row.get("created_by"));
+        item.put("updatedBy", row.get("updated_by"));
+        if (withData) {
+            item.put("data", raw ? jsonHelper.toRaw(row.get("data")) : jsonHelper.toMap(row.get("data")));
         }
+        return item;
     }
 
-    private boolean isSafeField(String field) {
-        return FIELD_PATTERN.matcher(field).matches();
+    private void validatePageCode(String pageCode) {
+        if (pageCode == null || pageCode.isBlank()) {
+            throw new BadRequestException("page code required");
+        }
+        if (!PAGE_CODE_PATTERN.matcher(pageCode).matches()) {
+            throw new BadRequestException("invalid page code");
+        }
     }
 
-    private static class ParamBuilder {
-        private final Map<String, Object> params = new LinkedHashMap<>();
-        private int index = 0;
+    private static class BatchGroup {
+        private final List<Integer> indexes = new ArrayList<>();
+        private final List<UUID> ids = new ArrayList<>();
+        private final List<String> dataJsons = new ArrayList<>();
+        private final List<String> statuses = new ArrayList<>();
+        private final List<String> operators = new ArrayList<>();
+
+        private void add(int index, UUID id, String dataJson, String status, String operator) {
+            indexes.add(index);
+            ids.add(id);
+            dataJsons.add(dataJson);
+            statuses.add(status);
+            operators.add(operator);
+        }
 
-        private String add(Object value) {
-            String key = "p" + index++;
-            params.put(key, value);
-            return "#{params." + key + "}";
+        private boolean isEmpty() {
+            return indexes.isEmpty();
+        }
+
+        private BatchGroup item(int i) {
+            BatchGroup item = new BatchGroup();
+            item.add(indexes.get(i), ids.get(i), dataJsons.get(i), statuses.get(i), operators.get(i));
+            return item;
+        }
+
+        private String[] ids() {
+            String[] values = new String[ids.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ids.get(i).toString();
+            }
+            return values;
+        }
+
+        private String[] dataJsons() {
+            return dataJsons.toArray(new String[0]);
+        }
+
+        private String[] statuses() {
+            return statuses.toArray(new String[0]);
         }
-    }
 
-    private static class QuerySql {
-        private final String countSql;
-        private final String pageSql;
-        private final Map<String, Object> params;
-        private final int page;
-        private final int pageSize;
-
-        private QuerySql(String countSql, String pageSql, Map<String, Object> params, int page, int pageSize) {
-            this.countSql = countSql;
-            this.pageSql = pageSql;
-            this.params = params;
-            this.page = page;
-            this.pageSize = pageSize;
+        private String[] operators() {
+            return operators.toArray(new String[0]);
         }
     }
 }
@@ -1,19 +1,29 @@
 package com.quickform.api.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.quickform.api.dto.RawJson;
 import org.postgresql.util.PGobject;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.Map;
 
 @Component
 public class JsonHelper {
     private final ObjectMapper objectMapper;
+    private final ObjectReader strictReader;
 
     public JsonHelper(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.strictReader = objectMapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
     }
 
     public String toJson(Object value) {
@@ -47,6 +57,39 @@ public class JsonHelper {
         }
     }
 
+    public JsonGenerator createGenerator(OutputStream out) {
+        try {
+            return objectMapper.createGenerator(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Parses exactly one JSON value; anything after it, such as a second document, is rejected.
+     */
+    public JsonNode toTree(String json) {
+        try {
+            return strictReader.readTree(json);
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to parse json", ex);
+        }
+    }
+
+    public RawJson toRaw(Object value) {
+        if (value == null) {
+            return new RawJson("{}");
+        }
+        if (value instanceof PGobject) {
+            String json = ((PGobject) value).getValue();
+            return new RawJson(json == null ? "{}" : json);
+        }
+        if (value instanceof Map<?, ?>) {
+            return new RawJson(toJson(value));
+        }
+        return new RawJson(value.toString());
+    }
+
     public <T> T toObject(Object value, Class<T> clazz) {
         if (value == null) {
             return null;
@@ -0,0 +1,202 @@
+package com.quickform.api.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies online-indexes.sql after startup with CREATE/DROP INDEX CONCURRENTLY, so index builds on large
+ * existing tables never block writes. The builds run on their own connection rather than a pooled one, since
+ * a large table can take a long time to index. One node at a time, guarded by a session advisory lock; an index left
+ * INVALID by an interrupted build is dropped and rebuilt on the next run.
+ */
+@Service
+public class OnlineIndexService {
+    private static final Logger log = LoggerFactory.getLogger(OnlineIndexService.class);
+    private static final String SCRIPT = "online-indexes.sql";
+    private static final Pattern STATEMENT = Pattern.compile(
+        "^(CREATE|DROP) INDEX CONCURRENTLY IF (NOT )?EXISTS ([a-z_][a-z0-9_]*)\\b.*", Pattern.DOTALL);
+    private static final long LOCK_KEY = 0x71666f6e6c696e65L;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final Map<String, String> states = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile String status = "idle";
+    private volatile String lastError;
+    private volatile boolean running;
+    private Thread worker;
+
+    public OnlineIndexService(DataSourceProperties dataSourceProperties,
+                              @Value("${quickform.schema.online-indexes:true}") boolean enabled) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || worker != null) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::applyAll, "online-index-builder");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("status", status);
+        stats.put("lastError", lastError);
+        synchronized (states) {
+            stats.put("indexes", new LinkedHashMap<>(states));
+        }
+        return stats;
+    }
+
+    private void applyAll() {
+        List<String> statements = loadStatements();
+        status = "running";
+        try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+            dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+            // CONCURRENTLY cannot run inside a transaction block.
+            connection.setAutoCommit(true);
+            if (!queryBoolean(connection, "SELECT pg_try_advisory_lock(?)", LOCK_KEY)) {
+                status = "skipped";
+                log.info("online indexes are being applied by another node");
+                return;
+            }
+            try {
+                for (String sql : statements) {
+                    if (!running) {
+                        status = "stopped";
+                        return;
+                    }
+                    apply(connection, sql);
+                }
+                status = "done";
+            } finally {
+                // Closing the session would release the lock too; unlocking keeps the intent explicit.
+                queryBoolean(connection, "SELECT pg_advisory_unlock(?)", LOCK_KEY);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            status = "failed";
+            lastError = ex.getMessage();
+            log.warn("online index build stopped, retried on next start: {}", ex.getMessage());
+        }
+    }
+
+    private void apply(Connection connection, String sql) throws SQLException {
+        Matcher matcher = STATEMENT.matcher(sql);
+        if (!matcher.matches()) {
+            throw new IllegalStateException("unsupported statement in " + SCRIPT + ": " + sql);
+        }
+        String name = matcher.group(3);
+        Boolean valid = indexValid(connection, name);
+        if ("CREATE".equals(matcher.group(1))) {
+            if (Boolean.TRUE.equals(valid)) {
+                states.put(name, "present");
+                return;
+            }
+            if (valid != null) {
+                // Left INVALID by an interrupted build; IF NOT EXISTS would otherwise keep it forever.
+                execute(connection, "DROP INDEX CONCURRENTLY IF EXISTS " + name);
+            }
+            states.put(name, "building");
+            long startedAt = System.currentTimeMillis();
+            try {
+                execute(connection, sql);
+            } catch (SQLException ex) {
+                states.put(name, "failed");
+                execute(connection, "DROP INDEX CONCURRENTLY IF EXISTS " + name);
+                throw ex;
+            }
+            states.put(name, "built");
+            log.info("built index {} in {} ms", name, System.currentTimeMillis() - startedAt);
+        } else {
+            if (valid == null) {
+                states.put(name, "absent");
+                return;
+            }
+            execute(connection, sql);
+            states.put(name, "dropped");
+            log.info("dropped index {}", name);
+        }
+    }
+
+    private Boolean indexValid(Connection connection, String name) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+            "SELECT i.indisvalid FROM pg_index i WHERE i.indexrelid = to_regclass(?)")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBoolean(1) : null;
+            }
+        }
+    }
+
+    private boolean queryBoolean(Connection connection, String sql, long key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private List<String> loadStatements() {
+        String script;
+        try {
+            script = StreamUtils.copyToString(new ClassPathResource(SCRIPT).getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        StringBuilder body = new StringBuilder();
+        for (String line : script.split("\n")) {
+            if (!line.trim().startsWith("--")) {
+                body.append(line).append('\n');
+            }
+        }
+        List<String> statements = new ArrayList<>();
+        for (String part : body.toString().split(";")) {
+            String sql = part.trim().replaceAll("\\s+", " ");
+            if (!sql.isEmpty()) {
+                statements.add(sql);
+            }
+        }
+        return statements;
+    }
+}
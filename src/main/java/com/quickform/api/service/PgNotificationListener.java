@@ -0,0 +1,136 @@
+package com.quickform.api.service;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * One LISTEN connection shared by every channel this node subscribes to. The connection is opened with
+ * DriverManager rather than taken from the pool, so listening never pins a pooled connection.
+ */
+@Component
+public class PgNotificationListener {
+    private static final Logger log = LoggerFactory.getLogger(PgNotificationListener.class);
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("^[a-z_][a-z0-9_]*$");
+    private static final int LISTEN_POLL_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final Set<String> listening = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private Thread listener;
+
+    public PgNotificationListener(DataSourceProperties dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    public interface Handler {
+        void onNotification(String payload);
+
+        /**
+         * Called once LISTEN is in place; notifications sent before that, or while reconnecting, are lost.
+         */
+        default void onConnect(boolean reconnect) {
+        }
+
+        default void onDisconnect() {
+        }
+    }
+
+    /**
+     * Subscribes handler to channel; starts the shared listener on first use.
+     */
+    public synchronized void register(String channel, Handler handler) {
+        if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+            throw new IllegalArgumentException("invalid channel: " + channel);
+        }
+        if (handlers.putIfAbsent(channel, handler) != null) {
+            throw new IllegalStateException("channel already registered: " + channel);
+        }
+        if (listener == null) {
+            running = true;
+            listener = new Thread(this::listenLoop, "pg-notification-listener");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    public boolean isListening(String channel) {
+        return running && listener != null && listener.isAlive() && listening.contains(channel);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listenLoop() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    // Channels registered after the connection opened are picked up here.
+                    for (Map.Entry<String, Handler> entry : handlers.entrySet()) {
+                        if (!listening.contains(entry.getKey())) {
+                            try (Statement statement = connection.createStatement()) {
+                                statement.execute("LISTEN " + entry.getKey());
+                            }
+                            listening.add(entry.getKey());
+                            entry.getValue().onConnect(reconnect);
+                        }
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(LISTEN_POLL_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        Handler handler = handlers.get(notification.getName());
+                        if (handler == null) {
+                            continue;
+                        }
+                        try {
+                            handler.onNotification(notification.getParameter());
+                        } catch (RuntimeException ex) {
+                            log.warn("{} notification handler failed: {}", notification.getName(), ex.getMessage());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("notification listener failed, reconnecting: {}", ex.getMessage());
+            }
+            listening.clear();
+            if (!running) {
+                return;
+            }
+            reconnect = true;
+            handlers.values().forEach(Handler::onDisconnect);
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
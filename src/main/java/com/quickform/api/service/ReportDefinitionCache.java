@@ -0,0 +1,378 @@
+package com.quickform.api.service;
+
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.mapper.CompiledSql;
+import com.quickform.api.mapper.ReportMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled report definitions per pageCode: the sql_text with :name rewritten to bind parameters and parsed
+ * once into a {@link CompiledSql}, the declared parameter types and the parsed options. The report triggers
+ * notify on every change, so a cached definition is dropped on all nodes as soon as its row is written.
+ * Materialized reports read from their current snapshot view instead of running sql_text.
+ */
+@Component
+public class ReportDefinitionCache {
+    public static final String CHANNEL = "report_changed";
+
+    private static final Pattern NAMED_PARAM = Pattern.compile("(?<!:):([a-zA-Z_][a-zA-Z0-9_]*)");
+    private static final Pattern COLUMN_PATTERN = Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_]*$");
+    private static final Pattern SNAPSHOT_VIEW = Pattern.compile("^report_snapshot_[0-9]+_v[0-9]+(_[0-9]+)?$");
+    private static final Pattern TRAILING_SEMICOLONS = Pattern.compile("[\\s;]+$");
+    private static final Set<String> PARAM_TYPES = Set.of("text", "integer", "numeric", "boolean", "date", "timestamp");
+
+    private final ReportMapper reportMapper;
+    private final ReportResultCache resultCache;
+    private final JsonHelper jsonHelper;
+    private final PgNotificationListener notificationListener;
+    private final boolean listen;
+    private final Map<String, Optional<Definition>> definitions = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ReportDefinitionCache(ReportMapper reportMapper,
+                                 ReportResultCache resultCache,
+                                 JsonHelper jsonHelper,
+                                 PgNotificationListener notificationListener,
+                                 @Value("${quickform.report.definition-cache.listen:true}") boolean listen) {
+        this.reportMapper = reportMapper;
+        this.resultCache = resultCache;
+        this.jsonHelper = jsonHelper;
+        this.notificationListener = notificationListener;
+        this.listen = listen;
+    }
+
+    public Definition get(String pageCode) {
+        Optional<Definition> cached = definitions.get(pageCode);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.orElse(null);
+        }
+        misses.incrementAndGet();
+        long before = generation.get();
+        Map<String, Object> row = reportMapper.getReportByPage(pageCode);
+        Definition definition = row == null ? null : compile(row);
+        // A load that raced with an invalidation may have read the old row, so it is returned but not cached.
+        if (generation.get() == before) {
+            definitions.put(pageCode, Optional.ofNullable(definition));
+            if (generation.get() != before) {
+                definitions.remove(pageCode);
+            }
+        }
+        return definition;
+    }
+
+    public void invalidate(String pageCode) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        definitions.remove(pageCode);
+        resultCache.invalidate(pageCode);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        definitions.clear();
+        resultCache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reports", definitions.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("listening", notificationListener.isListening(CHANNEL));
+        return stats;
+    }
+
+    private Definition compile(Map<String, Object> row) {
+        String pageCode = String.valueOf(row.get("page_code"));
+        Object sqlText = row.get("sql_text");
+        if (sqlText == null || sqlText.toString().isBlank()) {
+            throw new BadRequestException("report sql is empty");
+        }
+        Map<String, Object> options = Collections.unmodifiableMap(jsonHelper.toMap(row.get("options")));
+
+        Map<String, String> declared = new HashMap<>();
+        if (options.get("params") instanceof Map<?, ?> types) {
+            types.forEach((name, type) -> {
+                String kind = String.valueOf(type).toLowerCase(Locale.ROOT);
+                if (!PARAM_TYPES.contains(kind)) {
+                    throw new BadRequestException("invalid report param type: " + name);
+                }
+                declared.put(String.valueOf(name), kind);
+            });
+        }
+
+        Matcher matcher = NAMED_PARAM.matcher(TRAILING_SEMICOLONS.matcher(sqlText.toString()).replaceAll(""));
+        StringBuilder sql = new StringBuilder();
+        Map<String, String> params = new LinkedHashMap<>();
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            params.putIfAbsent(name, declared.getOrDefault(name, "any"));
+            matcher.appendReplacement(sql, "#\\{params." + name + "\\}");
+        }
+        matcher.appendTail(sql);
+
+        String orderKey = options.get("orderKey") == null ? null : options.get("orderKey").toString().trim();
+        if (orderKey != null && !COLUMN_PATTERN.matcher(orderKey).matches()) {
+            throw new BadRequestException("invalid report orderKey");
+        }
+        boolean orderDesc = Boolean.TRUE.equals(options.get("orderDesc"));
+        String orderKeyType = options.get("orderKeyType") == null
+            ? "any" : options.get("orderKeyType").toString().toLowerCase(Locale.ROOT);
+        if (!"any".equals(orderKeyType) && !PARAM_TYPES.contains(orderKeyType)) {
+            throw new BadRequestException("invalid report orderKeyType");
+        }
+
+        long id = ((Number) row.get("id")).longValue();
+        Object version = row.get("version");
+        long versionValue = version == null ? 0L : ((Number) version).longValue();
+        Map<String, Object> materialized = null;
+        if (Boolean.TRUE.equals(options.get("materialized"))) {
+            materialized = Collections.emptyMap();
+        } else if (options.get("materialized") instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, value) -> copy.put(String.valueOf(key), value));
+            materialized = Collections.unmodifiableMap(copy);
+        }
+        if (materialized != null && !params.isEmpty()) {
+            throw new BadRequestException("materialized report cannot take params");
+        }
+        Object snapshotView = row.get("snapshot_view");
+        boolean fromSnapshot = materialized != null && snapshotView != null
+            && SNAPSHOT_VIEW.matcher(snapshotView.toString()).matches();
+
+        // The report SQL is wrapped as a subquery so row limits and paging need no changes to sql_text.
+        String wrapped = fromSnapshot ? "SELECT * FROM " + snapshotView + " r" : "SELECT * FROM (\n" + sql + "\n) r";
+        String orderBy = orderKey == null ? "" : " ORDER BY r.\"" + orderKey + "\"" + (orderDesc ? " DESC" : "");
+        CompiledSql limitedSql = new CompiledSql(wrapped + orderBy
+            + " LIMIT #{params.__limit} OFFSET #{params.__offset}");
+        CompiledSql keysetSql = orderKey == null ? null : new CompiledSql(wrapped
+            + " WHERE r.\"" + orderKey + "\" " + (orderDesc ? "<" : ">") + " #{params.__after}"
+            + orderBy + " LIMIT #{params.__limit}");
+
+        return new Definition(
+            id,
+            pageCode,
+            (String) row.get("name"),
+            versionValue,
+            new CompiledSql(sql.toString()),
+            limitedSql,
+            keysetSql,
+            orderKey,
+            orderKeyType,
+            Collections.unmodifiableMap(params),
+            options,
+            materialized,
+            fromSnapshot && row.get("snapshot_at") instanceof Timestamp at ? at.toLocalDateTime() : null);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!listen) {
+            return;
+        }
+        notificationListener.register(CHANNEL, new PgNotificationListener.Handler() {
+            @Override
+            public void onNotification(String pageCode) {
+                if (pageCode == null || pageCode.isEmpty()) {
+                    invalidateAll();
+                } else {
+                    invalidate(pageCode);
+                }
+            }
+
+            @Override
+            public void onConnect(boolean reconnect) {
+                // Notifications sent while we were disconnected are lost, so start from a clean cache.
+                invalidateAll();
+            }
+
+            @Override
+            public void onDisconnect() {
+                invalidateAll();
+            }
+        });
+    }
+
+    public static class Definition {
+        private final long id;
+        private final String pageCode;
+        private final String name;
+        private final long version;
+        private final CompiledSql sql;
+        private final CompiledSql limitedSql;
+        private final CompiledSql keysetSql;
+        private final String orderKey;
+        private final String orderKeyType;
+        private final Map<String, String> params;
+        private final Map<String, Object> options;
+        private final Map<String, Object> materialized;
+        private final LocalDateTime snapshotAt;
+
+        private Definition(long id, String pageCode, String name, long version, CompiledSql sql,
+                           CompiledSql limitedSql, CompiledSql keysetSql, String orderKey, String orderKeyType,
+                           Map<String, String> params, Map<String, Object> options,
+                           Map<String, Object> materialized, LocalDateTime snapshotAt) {
+            this.id = id;
+            this.pageCode = pageCode;
+            this.name = name;
+            this.version = version;
+            this.sql = sql;
+            this.limitedSql = limitedSql;
+            this.keysetSql = keysetSql;
+            this.orderKey = orderKey;
+            this.orderKeyType = orderKeyType;
+            this.params = params;
+            this.options = options;
+            this.materialized = materialized;
+            this.snapshotAt = snapshotAt;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getPageCode() {
+            return pageCode;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * The report's own SQL, which a materialized report's snapshot view is built from.
+         */
+        public CompiledSql getSql() {
+            return sql;
+        }
+
+        /**
+         * The report wrapped with LIMIT #{params.__limit} OFFSET #{params.__offset}, ordered by orderKey if set.
+         */
+        public CompiledSql getLimitedSql() {
+            return limitedSql;
+        }
+
+        /**
+         * Rows after #{params.__after} in orderKey order, or null when the report declares no orderKey.
+         */
+        public CompiledSql getKeysetSql() {
+            return keysetSql;
+        }
+
+        public String getOrderKey() {
+            return orderKey;
+        }
+
+        public Object convertOrderKey(Object value) {
+            return convert("after", orderKeyType, value);
+        }
+
+        public Map<String, String> getParams() {
+            return params;
+        }
+
+        public Map<String, Object> getOptions() {
+            return options;
+        }
+
+        /**
+         * The materialized options, empty for "materialized": true, or null when the report runs live.
+         */
+        public Map<String, Object> getMaterialized() {
+            return materialized;
+        }
+
+        /**
+         * When the snapshot the report currently reads from was refreshed, or null when it runs live.
+         */
+        public LocalDateTime getSnapshotAt() {
+            return snapshotAt;
+        }
+
+        /**
+         * Picks the parameters the SQL references and converts them to their declared types.
+         */
+        public Map<String, Object> bind(Map<String, Object> values) {
+            Map<String, Object> bound = new HashMap<>();
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                Object value = values == null ? null : values.get(param.getKey());
+                bound.put(param.getKey(), convert(param.getKey(), param.getValue(), value));
+            }
+            return bound;
+        }
+
+        private static Object convert(String name, String type, Object value) {
+            if (value == null || "any".equals(type)) {
+                return value;
+            }
+            String text = value.toString().trim();
+            try {
+                switch (type) {
+                    case "text":
+                        return value.toString();
+                    case "integer":
+                        return value instanceof Number number && !(value instanceof BigDecimal)
+                            ? number.longValue() : Long.parseLong(text);
+                    case "numeric":
+                        return new BigDecimal(text);
+                    case "boolean":
+                        if (value instanceof Boolean) {
+                            return value;
+                        }
+                        if (!"true".equalsIgnoreCase(text) && !"false".equalsIgnoreCase(text)) {
+                            throw new BadRequestException("invalid param: " + name);
+                        }
+                        return Boolean.parseBoolean(text);
+                    case "date":
+                        return LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text);
+                    case "timestamp":
+                        return parseTimestamp(text);
+                    default:
+                        return value;
+                }
+            } catch (NumberFormatException | DateTimeParseException ex) {
+                throw new BadRequestException("invalid param: " + name);
+            }
+        }
+
+        private static LocalDateTime parseTimestamp(String text) {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay();
+            }
+            try {
+                return LocalDateTime.parse(text.replace(' ', 'T'));
+            } catch (DateTimeParseException ex) {
+                return OffsetDateTime.parse(text.replace(' ', 'T')).toLocalDateTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.quickform.api.service;
+
+import com.quickform.api.dto.ReportRunRequest;
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.exception.NotFoundException;
+import com.quickform.api.mapper.ReportJobMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs long reports in the background. Submitted jobs wait in report_job and are claimed by worker threads on
+ * any node, so a restart loses nothing; each worker runs on its own small connection pool, so a slow report
+ * never holds a request thread or a connection the data and workflow endpoints need. Results are stored gzipped
+ * NDJSON in report_job, which makes them readable from any node until they expire.
+ */
+@Service
+public class ReportJobService {
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+    private static final int PROGRESS_EVERY = 10000;
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long MAINTENANCE_INTERVAL_MS = 60 * 1000L;
+    private static final long CLAIM_POLL_MS = 1000;
+    private static final int PURGE_CHUNK = 1000;
+
+    private final ReportJobMapper jobMapper;
+    private final ReportDefinitionCache definitionCache;
+    private final ReportResultCache resultCache;
+    private final JsonHelper jsonHelper;
+    private final ReportRowReader rowReader;
+    private final DataSourceProperties dataSourceProperties;
+    private final int threads;
+    private final int queueSize;
+    private final long timeoutMs;
+    private final int maxRows;
+    private final long maxResultBytes;
+    private final long resultTtlMs;
+    private final long staleMs;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Set<UUID> active = ConcurrentHashMap.newKeySet();
+    private final Object signal = new Object();
+    private final List<Thread> workers = new ArrayList<>();
+    private HikariDataSource pool;
+    private volatile boolean running;
+    private Thread maintenance;
+
+    public ReportJobService(ReportJobMapper jobMapper,
+                            ReportDefinitionCache definitionCache,
+                            ReportResultCache resultCache,
+                            JsonHelper jsonHelper,
+                            ReportRowReader rowReader,
+                            DataSourceProperties dataSourceProperties,
+                            @Value("${quickform.report.jobs.threads:2}") int threads,
+                            @Value("${quickform.report.jobs.queue-size:50}") int queueSize,
+                            @Value("${quickform.report.jobs.timeout-ms:600000}") long timeoutMs,
+                            @Value("${quickform.report.jobs.max-rows:5000000}") int maxRows,
+                            @Value("${quickform.report.jobs.max-result-bytes:67108864}") long maxResultBytes,
+                            @Value("${quickform.report.jobs.result-ttl-ms:3600000}") long resultTtlMs,
+                            @Value("${quickform.report.jobs.stale-ms:300000}") long staleMs) {
+        this.jobMapper = jobMapper;
+        this.definitionCache = definitionCache;
+        this.resultCache = resultCache;
+        this.jsonHelper = jsonHelper;
+        this.rowReader = rowReader;
+        this.dataSourceProperties = dataSourceProperties;
+        this.threads = Math.max(1, threads);
+        this.queueSize = Math.max(1, queueSize);
+        this.timeoutMs = timeoutMs;
+        this.maxRows = maxRows;
+        this.maxResultBytes = maxResultBytes;
+        this.resultTtlMs = resultTtlMs;
+        this.staleMs = staleMs;
+    }
+
+    public Map<String, Object> submit(ReportRunRequest request, String operator) {
+        if (request == null || request.getPageCode() == null || request.getPageCode().isBlank()) {
+            throw new BadRequestException("pageCode required");
+        }
+        String pageCode = request.getPageCode().trim();
+        ReportDefinitionCache.Definition report = definitionCache.get(pageCode);
+        if (report == null) {
+            throw new NotFoundException("report config not found");
+        }
+        Map<String, Object> params = report.bind(request.getParams());
+        String paramsJson = resultCache.paramsKey(params);
+        String dedupKey = sha256(pageCode + '\u0000' + report.getVersion() + '\u0000' + paramsJson);
+
+        UUID existing = jobMapper.findReusableJob(dedupKey);
+        if (existing == null) {
+            if (jobMapper.countQueued() >= queueSize) {
+                throw new BadRequestException("too many report jobs, retry later");
+            }
+            UUID id = jobMapper.insertJob(UUID.randomUUID(), pageCode, dedupKey, paramsJson, operator);
+            if (id != null) {
+                synchronized (signal) {
+                    signal.notifyAll();
+                }
+                submitted.incrementAndGet();
+                return submitResult(id, false);
+            }
+            // Lost the race against an identical submission.
+            existing = jobMapper.findReusableJob(dedupKey);
+            if (existing == null) {
+                throw new BadRequestException("report job could not be queued, retry");
+            }
+        }
+        deduplicated.incrementAndGet();
+        return submitResult(existing, true);
+    }
+
+    public Map<String, Object> status(UUID id) {
+        Map<String, Object> row = jobMapper.getJob(id);
+        if (row == null) {
+            throw new NotFoundException("report job not found");
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", row.get("id"));
+        status.put("pageCode", row.get("page_code"));
+        status.put("status", row.get("status"));
+        status.put("rows", row.get("row_count"));
+        status.put("error", row.get("error"));
+        status.put("resultBytes", row.get("result_bytes"));
+        status.put("createdBy", row.get("created_by"));
+        status.put("createdAt", row.get("created_at"));
+        status.put("startedAt", row.get("started_at"));
+        status.put("finishedAt", row.get("finished_at"));
+        status.put("updatedAt", row.get("updated_at"));
+        status.put("expiresAt", row.get("expires_at"));
+        return status;
+    }
+
+    /**
+     * The gzipped NDJSON result of a finished job.
+     */
+    public byte[] result(UUID id) {
+        Map<String, Object> row = jobMapper.getJobResult(id);
+        if (row == null) {
+            throw new NotFoundException("report job not found");
+        }
+        Object status = row.get("status");
+        if (!"done".equals(status)) {
+            throw new BadRequestException("report job is " + status);
+        }
+        return (byte[]) row.get("result");
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> row = jobMapper.jobStats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (row != null) {
+            row.forEach((key, value) -> stats.put(key.equals("result_bytes") ? "resultBytes" : key, value));
+        }
+        stats.put("submitted", submitted.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("completed", completed.get());
+        stats.put("failedRuns", failed.get());
+        stats.put("threads", threads);
+        stats.put("activeJobs", active.size());
+        HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+        stats.put("poolActive", poolBean == null ? 0 : poolBean.getActiveConnections());
+        stats.put("poolIdle", poolBean == null ? 0 : poolBean.getIdleConnections());
+        return stats;
+    }
+
+    private Map<String, Object> submitResult(UUID id, boolean deduplicated) {
+        Map<String, Object> result = status(id);
+        result.put("deduplicated", deduplicated);
+        return result;
+    }
+
+    private void runJob(Map<String, Object> job) {
+        UUID id = (UUID) job.get("id");
+        String pageCode = String.valueOf(job.get("page_code"));
+        active.add(id);
+        try {
+            ReportDefinitionCache.Definition report = definitionCache.get(pageCode);
+            if (report == null) {
+                throw new NotFoundException("report config not found");
+            }
+            // Params were stored after binding, so binding them again only restores their types.
+            Output output = execute(id, report, report.bind(jsonHelper.toMap(job.get("params"))));
+            jobMapper.finishJob(id, output.rows, output.bytes, output.bytes.length, resultTtlMs);
+            completed.incrementAndGet();
+        } catch (Exception ex) {
+            failed.incrementAndGet();
+            log.warn("report job {} ({}) failed: {}", id, pageCode, ex.getMessage());
+            try {
+                jobMapper.failJob(id, truncate(String.valueOf(ex.getMessage())), resultTtlMs);
+            } catch (RuntimeException inner) {
+                log.warn("report job {} could not be marked failed: {}", id, inner.getMessage());
+            }
+        } finally {
+            active.remove(id);
+        }
+    }
+
+    private Output execute(UUID id, ReportDefinitionCache.Definition report, Map<String, Object> params)
+        throws SQLException, IOException {
+        int limit = (int) option(report, "jobMaxRows", maxRows);
+        Map<String, Object> bound = new HashMap<>(params);
+        bound.put("__limit", limit + 1);
+        bound.put("__offset", 0);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long rows;
+        try (Connection connection = pool.getConnection()) {
+            try {
+                long timeout = option(report, "jobTimeoutMs", timeoutMs);
+                if (timeout > 0) {
+                    try (Statement set = connection.createStatement()) {
+                        set.execute("SET LOCAL statement_timeout = " + timeout);
+                    }
+                }
+                try (GZIPOutputStream gzip = new GZIPOutputStream(new CappedOutputStream(buffer, maxResultBytes))) {
+                    RowStreamWriter[] writer = new RowStreamWriter[1];
+                    long[] count = new long[1];
+                    rows = rowReader.read(connection, report.getLimitedSql(), bound, new ReportRowReader.RowHandler() {
+                        @Override
+                        public void columns(List<String> columns) {
+                            writer[0] = RowStreamWriter.create(RowStreamWriter.NDJSON, gzip, columns, jsonHelper);
+                        }
+
+                        @Override
+                        public void row(Map<String, Object> row) {
+                            if (count[0] >= limit) {
+                                throw new BadRequestException("report exceeds jobMaxRows (" + limit + ")");
+                            }
+                            writer[0].write(row);
+                            if (++count[0] % PROGRESS_EVERY == 0) {
+                                jobMapper.updateProgress(id, count[0]);
+                            }
+                        }
+                    });
+                    writer[0].finish();
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+        return new Output(rows, buffer.toByteArray());
+    }
+
+    private long option(ReportDefinitionCache.Definition report, String name, long fallback) {
+        Object value = report.getOptions().get(name);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ex) {
+                throw new BadRequestException("invalid report option: " + name);
+            }
+        }
+        return fallback;
+    }
+
+    private String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String truncate(String value) {
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PostConstruct
+    public void start() {
+        pool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("report-jobs");
+        pool.setMaximumPoolSize(threads);
+        pool.setMinimumIdle(0);
+        pool.setAutoCommit(false);
+        pool.setReadOnly(true);
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workerLoop, "report-job-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        maintenance = new Thread(this::maintenanceLoop, "report-job-maintenance");
+        maintenance.setDaemon(true);
+        maintenance.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (maintenance != null) {
+            maintenance.interrupt();
+        }
+        workers.forEach(Thread::interrupt);
+        pool.close();
+    }
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                Map<String, Object> job = jobMapper.claimJob();
+                if (job != null) {
+                    runJob(job);
+                    continue;
+                }
+                synchronized (signal) {
+                    signal.wait(CLAIM_POLL_MS);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("report job claim failed: {}", ex.getMessage());
+                try {
+                    Thread.sleep(CLAIM_POLL_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void maintenanceLoop() {
+        while (running) {
+            try {
+                Thread.sleep(MAINTENANCE_INTERVAL_MS);
+                // A query can run for minutes without producing a row, so progress alone is no sign of life.
+                for (UUID id : active) {
+                    jobMapper.heartbeat(id);
+                }
+                jobMapper.failAbandoned(staleMs);
+                int purged;
+                do {
+                    purged = jobMapper.purgeExpired(PURGE_CHUNK);
+                } while (purged == PURGE_CHUNK && running);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("report job maintenance failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private static class Output {
+        private final long rows;
+        private final byte[] bytes;
+
+        private Output(long rows, byte[] bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+
+    private static class CappedOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final long max;
+        private long written;
+
+        private CappedOutputStream(OutputStream out, long max) {
+            this.out = out;
+            this.max = max;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            check(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            check(len);
+            out.write(b, off, len);
+        }
+
+        private void check(int len) throws IOException {
+            written += len;
+            if (max > 0 && written > max) {
+                throw new IOException("report result exceeds " + max + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.quickform.api.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches report results per (pageCode, normalized params). Caching is opt-in per report through
+ * report.options.cache: {"ttlMs": 60000, "maxSize": 100, "staleMs": 300000}. Concurrent misses for the same
+ * key share one load, and within staleMs after expiry the old result is served while a background refresh runs.
+ */
+@Component
+public class ReportResultCache {
+    private static final Logger log = LoggerFactory.getLogger(ReportResultCache.class);
+
+    private final JsonHelper jsonHelper;
+    private final int defaultMaxSize;
+    private final Map<String, PageCache> pages = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong loadTimeMs = new AtomicLong();
+    private final AtomicLong maxLoadTimeMs = new AtomicLong();
+    private final ExecutorService refresher;
+
+    public ReportResultCache(JsonHelper jsonHelper,
+                             @Value("${quickform.report.cache.default-max-size:100}") int defaultMaxSize,
+                             @Value("${quickform.report.cache.refresh-threads:2}") int refreshThreads) {
+        this.jsonHelper = jsonHelper;
+        this.defaultMaxSize = defaultMaxSize;
+        this.refresher = Executors.newFixedThreadPool(Math.max(1, refreshThreads), runnable -> {
+            Thread thread = new Thread(runnable, "report-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the cached result, or runs the loader when the report has no cache options.
+     */
+    public List<Map<String, Object>> get(String pageCode, Map<String, Object> options, Map<String, Object> params,
+                                         Supplier<List<Map<String, Object>>> loader) {
+        Policy policy = policy(options);
+        if (policy == null) {
+            return loader.get();
+        }
+        PageCache page = pages.compute(pageCode, (key, current) ->
+            current != null && current.maxSize == policy.maxSize ? current : new PageCache(policy.maxSize));
+        String key = pageCode + '\u0000' + paramsKey(params);
+        Entry entry = page.entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null) {
+            long age = now - entry.loadedAt;
+            if (age <= policy.ttlMs) {
+                hits.incrementAndGet();
+                return entry.rows;
+            }
+            if (age <= policy.ttlMs + policy.staleMs) {
+                staleHits.incrementAndGet();
+                if (!loading.containsKey(key)) {
+                    refresher.execute(() -> {
+                        try {
+                            load(page, key, loader);
+                        } catch (RuntimeException ex) {
+                            log.warn("report {} background refresh failed: {}", pageCode, ex.getMessage());
+                        }
+                    });
+                }
+                return entry.rows;
+            }
+        }
+        misses.incrementAndGet();
+        return load(page, key, loader).rows;
+    }
+
+    /**
+     * Params serialized with sorted keys, so {"a":1,"b":2} and {"b":2,"a":1} give the same key.
+     */
+    public String paramsKey(Map<String, Object> params) {
+        return jsonHelper.toJson(normalize(params));
+    }
+
+    public void invalidate(String pageCode) {
+        pages.remove(pageCode);
+    }
+
+    public void invalidateAll() {
+        pages.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.get() + staleHits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        long loadCount = loads.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> sizes = new TreeMap<>();
+        pages.forEach((pageCode, page) -> sizes.put(pageCode, page.entries.stats().get("size")));
+        stats.put("pages", sizes);
+        stats.put("hits", hits.get());
+        stats.put("staleHits", staleHits.get());
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("coalesced", coalesced.get());
+        stats.put("loads", loadCount);
+        stats.put("loadFailures", loadFailures.get());
+        stats.put("avgLoadMs", loadCount == 0 ? 0.0 : (double) loadTimeMs.get() / loadCount);
+        stats.put("maxLoadMs", maxLoadTimeMs.get());
+        stats.put("loading", loading.size());
+        return stats;
+    }
+
+    private Entry load(PageCache page, String key, Supplier<List<Map<String, Object>>> loader) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+        long started = System.currentTimeMillis();
+        try {
+            Entry entry = new Entry(Collections.unmodifiableList(loader.get()), System.currentTimeMillis());
+            page.entries.put(key, entry);
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException ex) {
+            loadFailures.incrementAndGet();
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, future);
+            long elapsed = System.currentTimeMillis() - started;
+            loads.incrementAndGet();
+            loadTimeMs.addAndGet(elapsed);
+            maxLoadTimeMs.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private Entry await(CompletableFuture<Entry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private Policy policy(Map<String, Object> options) {
+        Object cache = options == null ? null : options.get("cache");
+        if (!(cache instanceof Map<?, ?> map)) {
+            return null;
+        }
+        long ttlMs = toLong(map.get("ttlMs"), 0);
+        if (ttlMs <= 0) {
+            return null;
+        }
+        int maxSize = (int) toLong(map.get("maxSize"), defaultMaxSize);
+        long staleMs = Math.max(0, toLong(map.get("staleMs"), 0));
+        return new Policy(ttlMs, Math.max(1, maxSize), staleMs);
+    }
+
+    private long toLong(Object value, long fallback) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ignored) {
+                return fallback;
+            }
+        }
+        return fallback;
+    }
+
+    private Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((key, item) -> sorted.put(String.valueOf(key), normalize(item)));
+            return sorted;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> items = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                items.add(normalize(item));
+            }
+            return items;
+        }
+        return value;
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    private static class Policy {
+        private final long ttlMs;
+        private final int maxSize;
+        private final long staleMs;
+
+        private Policy(long ttlMs, int maxSize, long staleMs) {
+            this.ttlMs = ttlMs;
+            this.maxSize = maxSize;
+            this.staleMs = staleMs;
+        }
+    }
+
+    private static class PageCache {
+        private final int maxSize;
+        private final LruCache<String, Entry> entries;
+
+        private PageCache(int maxSize) {
+            this.maxSize = maxSize;
+            this.entries = new LruCache<>(maxSize);
+        }
+    }
+
+    private static class Entry {
+        private final List<Map<String, Object>> rows;
+        private final long loadedAt;
+
+        private Entry(List<Map<String, Object>> rows, long loadedAt) {
+            this.rows = rows;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
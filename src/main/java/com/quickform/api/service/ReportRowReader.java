@@ -0,0 +1,85 @@
+package com.quickform.api.service;
+
+import com.quickform.api.dto.RawJson;
+import com.quickform.api.mapper.CompiledSql;
+import com.quickform.api.mapper.ReportMapper;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.postgresql.util.PGobject;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Streams a compiled report statement over plain JDBC on the caller's connection. Columns come from the result
+ * set metadata, so every row carries every column in select-list order, null or not, which CSV headers need.
+ */
+@Component
+public class ReportRowReader {
+    private static final String RUN_CURSOR = ReportMapper.class.getName() + ".runCursor";
+    private static final int FETCH_SIZE = 1000;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    public ReportRowReader(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    public interface RowHandler {
+        void columns(List<String> columns) throws IOException;
+
+        void row(Map<String, Object> row) throws IOException;
+    }
+
+    /**
+     * Reads all rows of sql, returning the row count. The connection must not be in auto-commit mode, or the
+     * driver fetches the whole result at once.
+     */
+    public long read(Connection connection, CompiledSql sql, Map<String, Object> params, RowHandler handler)
+        throws SQLException, IOException {
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("sql", sql);
+        parameter.put("params", params);
+        // Reuses the report statement's parameter mapping, so binding matches /report/run exactly.
+        MappedStatement statement = sqlSessionFactory.getConfiguration().getMappedStatement(RUN_CURSOR);
+        BoundSql boundSql = statement.getBoundSql(parameter);
+        long rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(boundSql.getSql(),
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(FETCH_SIZE);
+            new DefaultParameterHandler(statement, parameter, boundSql).setParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    columns.add(meta.getColumnLabel(i));
+                }
+                handler.columns(columns);
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 0; i < columns.size(); i++) {
+                        row.put(columns.get(i), value(rs.getObject(i + 1)));
+                    }
+                    handler.row(row);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private Object value(Object value) throws SQLException {
+        if (value instanceof PGobject pg) {
+            String type = pg.getType();
+            return "json".equals(type) || "jsonb".equals(type) ? new RawJson(pg.getValue()) : pg.getValue();
+        }
+        if (value instanceof Array array) {
+            return array.getArray();
+        }
+        return value;
+    }
+}
@@ -1,60 +1,240 @@
 package com.quickform.api.service;
 
+import com.quickform.api.dto.PageResult;
+import com.quickform.api.dto.ReportPageRequest;
 import com.quickform.api.dto.ReportRunRequest;
 import com.quickform.api.exception.BadRequestException;
 import com.quickform.api.exception.NotFoundException;
 import com.quickform.api.mapper.ReportMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
 import java.util.regex.Pattern;
 
 @Service
 public class ReportService {
-    private static final Pattern NAMED_PARAM = Pattern.compile("(?<!:):([a-zA-Z_][a-zA-Z0-9_]*)");
     private static final Pattern PAGE_CODE_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
     private final ReportMapper reportMapper;
+    private final ReportDefinitionCache definitionCache;
+    private final ReportResultCache resultCache;
+    private final JsonHelper jsonHelper;
+    private final TransactionTemplate transactionTemplate;
+    private final ReportRowReader rowReader;
+    private final DataSource dataSource;
+    private final long runTimeoutMs;
+    private final long runMaxRows;
+    private final long defaultTimeoutMs;
+    private final int defaultMaxRows;
+    private final int defaultStreamMaxRows;
+    private final int pageMaxSize;
 
-    public ReportService(ReportMapper reportMapper) {
+    public ReportService(ReportMapper reportMapper,
+                         ReportDefinitionCache definitionCache,
+                         ReportResultCache resultCache,
+                         JsonHelper jsonHelper,
+                         TransactionTemplate transactionTemplate,
+                         ReportRowReader rowReader,
+                         DataSource dataSource,
+                         @Value("${quickform.report.run-timeout-ms:0}") long runTimeoutMs,
+                         @Value("${quickform.report.run-max-rows:0}") long runMaxRows,
+                         @Value("${quickform.report.default-timeout-ms:30000}") long defaultTimeoutMs,
+                         @Value("${quickform.report.default-max-rows:10000}") int defaultMaxRows,
+                         @Value("${quickform.report.default-stream-max-rows:1000000}") int defaultStreamMaxRows,
+                         @Value("${quickform.report.page-max-size:1000}") int pageMaxSize) {
         this.reportMapper = reportMapper;
+        this.definitionCache = definitionCache;
+        this.resultCache = resultCache;
+        this.jsonHelper = jsonHelper;
+        this.transactionTemplate = transactionTemplate;
+        this.rowReader = rowReader;
+        this.dataSource = dataSource;
+        this.runTimeoutMs = runTimeoutMs;
+        this.runMaxRows = runMaxRows;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.defaultMaxRows = defaultMaxRows;
+        this.defaultStreamMaxRows = defaultStreamMaxRows;
+        this.pageMaxSize = pageMaxSize;
     }
 
+    /**
+     * Runs the whole report. Unlike page and stream, run has no row cap or timeout unless the report sets
+     * maxRows/timeoutMs (or run-max-rows/run-timeout-ms are configured), so existing reports behave as before.
+     */
     public List<Map<String, Object>> run(ReportRunRequest request) {
-        if (request == null || request.getPageCode() == null || request.getPageCode().isBlank()) {
+        ReportDefinitionCache.Definition report = definition(request == null ? null : request.getPageCode());
+        Map<String, Object> params = report.bind(request.getParams());
+        return resultCache.get(report.getPageCode(), report.getOptions(), params,
+            () -> transactionTemplate.execute(status -> {
+                long maxRows = option(report, "maxRows", runMaxRows);
+                applyTimeout(report, runTimeoutMs);
+                Map<String, Object> bound = new HashMap<>(params);
+                bound.put("__limit", maxRows > 0 ? maxRows + 1 : Long.MAX_VALUE);
+                bound.put("__offset", 0);
+                List<Map<String, Object>> rows = reportMapper.run(report.getLimitedSql(), bound);
+                if (maxRows > 0 && rows.size() > maxRows) {
+                    throw new BadRequestException("report exceeds maxRows (" + maxRows + "), use page or stream");
+                }
+                return rows;
+            }));
+    }
+
+    @Transactional(readOnly = true)
+    public PageResult<Map<String, Object>> page(ReportPageRequest request) {
+        ReportDefinitionCache.Definition report = definition(request == null ? null : request.getPageCode());
+        int page = request.getPage() == null || request.getPage() < 1 ? 1 : request.getPage();
+        int pageSize = request.getPageSize() == null || request.getPageSize() < 1 ? 20 : request.getPageSize();
+        pageSize = Math.min(pageSize, pageMaxSize);
+        String after = request.getAfter() == null || request.getAfter().isBlank() ? null : request.getAfter().trim();
+        Map<String, Object> params = report.bind(request.getParams());
+        applyTimeout(report, defaultTimeoutMs);
+
+        List<Map<String, Object>> rows;
+        int keep = pageSize;
+        boolean hasMore;
+        if (after != null) {
+            if (report.getKeysetSql() == null) {
+                throw new BadRequestException("report has no orderKey");
+            }
+            params.put("__after", report.convertOrderKey(decodeAfter(after)));
+            params.put("__limit", pageSize + 1);
+            rows = reportMapper.run(report.getKeysetSql(), params);
+            hasMore = rows.size() > pageSize;
+        } else {
+            int maxRows = option(report, "maxRows", defaultMaxRows);
+            long offset = (long) (page - 1) * pageSize;
+            if (offset >= maxRows) {
+                throw new BadRequestException("page exceeds maxRows (" + maxRows + ")");
+            }
+            int limit = (int) Math.min(pageSize, maxRows - offset);
+            params.put("__limit", limit + 1);
+            params.put("__offset", offset);
+            rows = reportMapper.run(report.getLimitedSql(), params);
+            hasMore = rows.size() > limit && offset + limit < maxRows;
+            keep = limit;
+        }
+        List<Map<String, Object>> items = rows.size() > keep ? rows.subList(0, keep) : rows;
+
+        PageResult<Map<String, Object>> result = new PageResult<>(items, -1, page, pageSize);
+        result.setTotalMode(TotalCounter.NONE);
+        result.setTotalExact(false);
+        if (hasMore && report.getOrderKey() != null) {
+            result.setNextCursor(encodeAfter(items.get(items.size() - 1).get(report.getOrderKey())));
+        }
+        return result;
+    }
+
+    /**
+     * Writes the report rows to out as they are read from a server-side cursor, stopping at streamMaxRows.
+     * Rows are read over JDBC so the CSV header follows the select list even when leading values are null.
+     */
+    @Transactional(readOnly = true)
+    public void stream(ReportRunRequest request, String format, OutputStream out) {
+        String normalizedFormat = RowStreamWriter.normalizeFormat(format);
+        ReportDefinitionCache.Definition report = definition(request == null ? null : request.getPageCode());
+        Map<String, Object> params = report.bind(request.getParams());
+        params.put("__limit", option(report, "streamMaxRows", defaultStreamMaxRows));
+        params.put("__offset", 0);
+        applyTimeout(report, defaultTimeoutMs);
+
+        RowStreamWriter[] writer = new RowStreamWriter[1];
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            rowReader.read(connection, report.getLimitedSql(), params, new ReportRowReader.RowHandler() {
+                @Override
+                public void columns(List<String> columns) {
+                    writer[0] = RowStreamWriter.create(normalizedFormat, out, columns, jsonHelper);
+                }
+
+                @Override
+                public void row(Map<String, Object> row) {
+                    writer[0].write(row);
+                }
+            });
+        } catch (SQLException ex) {
+            throw new UncategorizedSQLException("report stream", report.getLimitedSql().getSql(), ex);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        writer[0].finish();
+    }
+
+    /**
+     * When the snapshot a materialized report reads from was refreshed, or null when the report runs live.
+     */
+    public LocalDateTime snapshotAt(String pageCode) {
+        return definition(pageCode).getSnapshotAt();
+    }
+
+    private ReportDefinitionCache.Definition definition(String pageCode) {
+        if (pageCode == null || pageCode.isBlank()) {
             throw new BadRequestException("pageCode required");
         }
-        if (!PAGE_CODE_PATTERN.matcher(request.getPageCode()).matches()) {
+        if (!PAGE_CODE_PATTERN.matcher(pageCode).matches()) {
             throw new BadRequestException("invalid pageCode");
         }
-
-        Map<String, Object> report = reportMapper.getReportByPage(request.getPageCode());
+        ReportDefinitionCache.Definition report = definitionCache.get(pageCode);
         if (report == null) {
             throw new NotFoundException("report config not found");
         }
-        if (report.get("page_code") == null || !request.getPageCode().equals(report.get("page_code").toString())) {
-            throw new BadRequestException("report does not belong to pageCode");
+        return report;
+    }
+
+    private void applyTimeout(ReportDefinitionCache.Definition report, long fallback) {
+        long timeoutMs = option(report, "timeoutMs", fallback);
+        if (timeoutMs > 0) {
+            reportMapper.setStatementTimeout(String.valueOf(timeoutMs));
+        }
+    }
+
+    private int option(ReportDefinitionCache.Definition report, String name, int fallback) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE - 1, option(report, name, (long) fallback)));
+    }
+
+    private long option(ReportDefinitionCache.Definition report, String name, long fallback) {
+        Object value = report.getOptions().get(name);
+        if (value instanceof Number number) {
+            return number.longValue();
         }
-        Object sqlObj = report.get("sql_text");
-        if (sqlObj == null || sqlObj.toString().isBlank()) {
-            throw new BadRequestException("report sql is empty");
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ex) {
+                throw new BadRequestException("invalid report option: " + name);
+            }
         }
+        return fallback;
+    }
 
-        Map<String, Object> params = request.getParams() == null ? Collections.emptyMap() : request.getParams();
-        String sql = convertNamedParams(sqlObj.toString());
-        return reportMapper.run(sql, params);
+    private String encodeAfter(Object value) {
+        Map<String, Object> cursor = new LinkedHashMap<>();
+        cursor.put("v", value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString()
+            : value instanceof Number || value instanceof Boolean || value == null ? value : value.toString());
+        byte[] bytes = jsonHelper.toJson(cursor).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
-    private String convertNamedParams(String sql) {
-        Matcher matcher = NAMED_PARAM.matcher(sql);
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            String name = matcher.group(1);
-            matcher.appendReplacement(sb, "#\\{params." + name + "\\}");
+    private Object decodeAfter(String after) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            return jsonHelper.toMap(json).get("v");
+        } catch (RuntimeException ex) {
+            throw new BadRequestException("invalid after");
         }
-        matcher.appendTail(sb);
-        return sb.toString();
     }
 }
@@ -0,0 +1,423 @@
+package com.quickform.api.service;
+
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.exception.NotFoundException;
+import com.quickform.api.mapper.ReportMapper;
+import com.quickform.api.mapper.ReportSnapshotMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains a materialized view per materialized report and refreshes it on the report's cron schedule, or
+ * debounceMs after the last data write to one of its source pages. Reports declaring a uniqueKey are refreshed
+ * CONCURRENTLY; the others, and any new report version, get a freshly built view that is swapped in on commit.
+ * Either way readers keep querying the current view while the refresh runs.
+ */
+@Component
+public class ReportSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(ReportSnapshotService.class);
+    private static final Pattern COLUMN_PATTERN = Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_]*$");
+    private static final Pattern PAGE_CODE_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
+    private static final Pattern SNAPSHOT_VIEW = Pattern.compile("^report_snapshot_[0-9]+_v[0-9]+(_[0-9]+)?$");
+    private static final long RETRY_DELAY_MS = 60 * 1000L;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ReportSnapshotMapper snapshotMapper;
+    private final ReportMapper reportMapper;
+    private final ReportDefinitionCache definitionCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long pollMs;
+    private final long defaultDebounceMs;
+    private final long defaultTimeoutMs;
+    private final Map<String, Dirty> dirty = new ConcurrentHashMap<>();
+    private final Map<String, CronExpression> crons = new ConcurrentHashMap<>();
+    private volatile Map<String, List<String>> sourceIndex = Collections.emptyMap();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong swaps = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile boolean running;
+    private Thread worker;
+
+    public ReportSnapshotService(ReportSnapshotMapper snapshotMapper,
+                                 ReportMapper reportMapper,
+                                 ReportDefinitionCache definitionCache,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${quickform.report.snapshot.enabled:true}") boolean enabled,
+                                 @Value("${quickform.report.snapshot.poll-ms:5000}") long pollMs,
+                                 @Value("${quickform.report.snapshot.default-debounce-ms:30000}") long defaultDebounceMs,
+                                 @Value("${quickform.report.snapshot.timeout-ms:600000}") long defaultTimeoutMs) {
+        this.snapshotMapper = snapshotMapper;
+        this.reportMapper = reportMapper;
+        this.definitionCache = definitionCache;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.pollMs = pollMs;
+        this.defaultDebounceMs = defaultDebounceMs;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+    }
+
+    /**
+     * Called after data writes to pageCode; marks the materialized reports reading that page for a debounced refresh.
+     */
+    public void dataChanged(String pageCode) {
+        List<String> reports = sourceIndex.get(pageCode);
+        if (reports == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (String report : reports) {
+            dirty.merge(report, new Dirty(now, now), (current, ignored) -> new Dirty(current.firstAt, now));
+        }
+    }
+
+    /**
+     * Rebuilds or refreshes the snapshot of pageCode now.
+     */
+    public Map<String, Object> refresh(String pageCode) {
+        ReportDefinitionCache.Definition report = definitionCache.get(pageCode);
+        if (report == null) {
+            throw new NotFoundException("report config not found");
+        }
+        if (report.getMaterialized() == null) {
+            throw new BadRequestException("report is not materialized");
+        }
+        try {
+            return refresh(report, policy(report));
+        } catch (RuntimeException ex) {
+            recordError(report.getId(), pageCode, ex);
+            throw ex;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running && worker != null && worker.isAlive());
+        stats.put("snapshots", snapshotMapper.listSnapshots());
+        stats.put("dirty", new TreeSet<>(dirty.keySet()));
+        stats.put("refreshes", refreshes.get());
+        stats.put("swaps", swaps.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("skipped", skipped.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    private Map<String, Object> refresh(ReportDefinitionCache.Definition report, Policy policy) {
+        String pageCode = report.getPageCode();
+        Dirty pending = dirty.remove(pageCode);
+        long started = System.currentTimeMillis();
+        Map<String, Object> result;
+        try {
+            result = transactionTemplate.execute(status -> refreshLocked(report, policy, started));
+        } catch (RuntimeException ex) {
+            failures.incrementAndGet();
+            restore(pageCode, pending);
+            throw ex;
+        }
+        if ("skipped".equals(result.get("action"))) {
+            // Another node holds the lock; its refresh may have started before our writes.
+            skipped.incrementAndGet();
+            restore(pageCode, pending);
+        } else {
+            definitionCache.invalidate(pageCode);
+        }
+        result.put("elapsedMs", System.currentTimeMillis() - started);
+        return result;
+    }
+
+    private Map<String, Object> refreshLocked(ReportDefinitionCache.Definition report, Policy policy, long started) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pageCode", report.getPageCode());
+        if (!snapshotMapper.tryLock(report.getId())) {
+            result.put("action", "skipped");
+            return result;
+        }
+        if (policy.timeoutMs > 0) {
+            reportMapper.setStatementTimeout(String.valueOf(policy.timeoutMs));
+        }
+        Map<String, Object> current = snapshotMapper.getSnapshot(report.getId());
+        String currentView = current == null ? null : viewName(current.get("view_name"));
+        boolean sameVersion = currentView != null && ((Number) current.get("version")).longValue() == report.getVersion()
+            && snapshotMapper.relationExists(currentView);
+        // Replaced a full refresh cycle ago, so no node reads it any more.
+        dropView(current == null ? null : current.get("previous_view"));
+
+        boolean concurrent = policy.uniqueKey != null;
+        String view;
+        String retired;
+        String action;
+        if (concurrent && sameVersion) {
+            snapshotMapper.executeDdl("REFRESH MATERIALIZED VIEW CONCURRENTLY " + currentView);
+            view = currentView;
+            retired = null;
+            refreshes.incrementAndGet();
+            action = "refreshed";
+        } else {
+            // Built beside the current view, which keeps serving until the new one is recorded on commit.
+            view = "report_snapshot_" + report.getId() + "_v" + report.getVersion() + "_" + System.currentTimeMillis();
+            snapshotMapper.executeDdl("CREATE MATERIALIZED VIEW " + view + " AS\n" + report.getSql().getSql() + "\nWITH DATA");
+            if (concurrent) {
+                snapshotMapper.executeDdl("CREATE UNIQUE INDEX " + view + "_key ON " + view + " (" + columns(policy.uniqueKey) + ")");
+            }
+            String orderKey = report.getOrderKey();
+            if (orderKey != null && !List.of(orderKey).equals(policy.uniqueKey)) {
+                snapshotMapper.executeDdl("CREATE INDEX " + view + "_order ON " + view + " (\"" + orderKey + "\")");
+            }
+            retired = currentView;
+            if (sameVersion) {
+                swaps.incrementAndGet();
+                action = "swapped";
+            } else {
+                rebuilds.incrementAndGet();
+                action = "rebuilt";
+            }
+        }
+        snapshotMapper.saveSnapshot(report.getId(), report.getPageCode(), report.getVersion(), view, retired, concurrent,
+            System.currentTimeMillis() - started);
+        // Reloads the definition, and with it the view name and snapshot time, and drops cached results on every node.
+        snapshotMapper.notifyChanged(ReportDefinitionCache.CHANNEL, report.getPageCode());
+        result.put("view", view);
+        result.put("action", action);
+        result.put("concurrent", concurrent && sameVersion);
+        return result;
+    }
+
+    private String viewName(Object name) {
+        return name != null && SNAPSHOT_VIEW.matcher(name.toString()).matches() ? name.toString() : null;
+    }
+
+    private void dropView(Object name) {
+        String view = viewName(name);
+        if (view != null) {
+            snapshotMapper.executeDdl("DROP MATERIALIZED VIEW IF EXISTS " + view);
+        }
+    }
+
+    private void recordError(long reportId, String pageCode, RuntimeException ex) {
+        String error = String.valueOf(ex.getMessage());
+        snapshotMapper.recordError(reportId, pageCode,
+            error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH));
+    }
+
+    private void restore(String pageCode, Dirty pending) {
+        if (pending != null) {
+            dirty.merge(pageCode, pending, (current, previous) ->
+                new Dirty(Math.min(current.firstAt, previous.firstAt), Math.max(current.lastAt, previous.lastAt)));
+        }
+    }
+
+    private String columns(List<String> names) {
+        StringBuilder sql = new StringBuilder();
+        for (String name : names) {
+            if (sql.length() > 0) {
+                sql.append(", ");
+            }
+            sql.append('"').append(name).append('"');
+        }
+        return sql.toString();
+    }
+
+    private Policy policy(ReportDefinitionCache.Definition report) {
+        Map<String, Object> options = report.getMaterialized();
+        CronExpression cron = null;
+        Object cronText = options.get("cron");
+        if (cronText != null && !cronText.toString().isBlank()) {
+            try {
+                cron = crons.computeIfAbsent(cronText.toString().trim(), CronExpression::parse);
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("invalid materialized cron: " + ex.getMessage());
+            }
+        }
+        long debounceMs = toLong(options.get("debounceMs"), defaultDebounceMs);
+        long maxWaitMs = toLong(options.get("maxWaitMs"), debounceMs * 10);
+        long timeoutMs = toLong(options.get("timeoutMs"), defaultTimeoutMs);
+        List<String> uniqueKey = names(options.get("uniqueKey"), COLUMN_PATTERN, "uniqueKey");
+        List<String> sources = names(options.get("sources"), PAGE_CODE_PATTERN, "sources");
+        return new Policy(cron, debounceMs, maxWaitMs, timeoutMs, uniqueKey,
+            sources == null ? List.of(report.getPageCode()) : sources);
+    }
+
+    private List<String> names(Object value, Pattern pattern, String option) {
+        if (value == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (Object item : value instanceof Collection<?> collection ? collection : List.of(value)) {
+            String name = String.valueOf(item).trim();
+            if (!pattern.matcher(name).matches()) {
+                throw new BadRequestException("invalid materialized " + option + ": " + name);
+            }
+            names.add(name);
+        }
+        return names.isEmpty() ? null : names;
+    }
+
+    private long toLong(Object value, long fallback) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ex) {
+                throw new BadRequestException("invalid materialized option: " + value);
+            }
+        }
+        return fallback;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "report-snapshot");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                poll();
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("report snapshot poll failed: {}", ex.getMessage());
+            }
+            try {
+                Thread.sleep(pollMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void poll() {
+        Map<String, List<String>> index = new HashMap<>();
+        Set<String> materialized = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (Map<String, Object> row : snapshotMapper.listMaterialized(RETRY_DELAY_MS)) {
+            String pageCode = String.valueOf(row.get("page_code"));
+            boolean retryWait = Boolean.TRUE.equals(row.get("retry_wait"));
+            try {
+                ReportDefinitionCache.Definition report = definitionCache.get(pageCode);
+                if (report == null || report.getMaterialized() == null) {
+                    continue;
+                }
+                Policy policy = policy(report);
+                materialized.add(pageCode);
+                for (String source : policy.sources) {
+                    index.computeIfAbsent(source, key -> new ArrayList<>()).add(pageCode);
+                }
+                if (!retryWait && due(report, policy, row, now)) {
+                    Map<String, Object> result = refresh(report, policy);
+                    log.debug("report {} snapshot {} in {} ms", pageCode, result.get("action"), result.get("elapsedMs"));
+                }
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                // A broken definition fails every poll; it is reported again only once the retry delay passes.
+                if (!retryWait) {
+                    log.warn("report {} snapshot refresh failed: {}", pageCode, ex.getMessage());
+                    recordError(((Number) row.get("id")).longValue(), pageCode, ex);
+                }
+            }
+        }
+        sourceIndex = index;
+        dirty.keySet().retainAll(materialized);
+        dropOrphans();
+    }
+
+    private boolean due(ReportDefinitionCache.Definition report, Policy policy, Map<String, Object> row, long now) {
+        Object snapshotVersion = row.get("snapshot_version");
+        if (snapshotVersion == null || ((Number) snapshotVersion).longValue() != report.getVersion()
+            || row.get("refreshed_at") == null) {
+            return true;
+        }
+        if (policy.cron != null) {
+            LocalDateTime refreshedAt = ((Timestamp) row.get("refreshed_at")).toLocalDateTime();
+            LocalDateTime next = policy.cron.next(refreshedAt);
+            if (next != null && !next.isAfter(((Timestamp) row.get("now")).toLocalDateTime())) {
+                return true;
+            }
+        }
+        Dirty pending = dirty.get(report.getPageCode());
+        return pending != null && (now - pending.lastAt >= policy.debounceMs || now - pending.firstAt >= policy.maxWaitMs);
+    }
+
+    private void dropOrphans() {
+        for (Map<String, Object> row : snapshotMapper.listOrphans()) {
+            long reportId = ((Number) row.get("report_id")).longValue();
+            Boolean dropped = transactionTemplate.execute(status -> {
+                if (!snapshotMapper.tryLock(reportId)) {
+                    return false;
+                }
+                dropView(row.get("view_name"));
+                dropView(row.get("previous_view"));
+                snapshotMapper.deleteSnapshot(reportId);
+                return true;
+            });
+            if (Boolean.TRUE.equals(dropped)) {
+                log.info("dropped snapshot of report {}", row.get("page_code"));
+            }
+        }
+    }
+
+    private static class Policy {
+        private final CronExpression cron;
+        private final long debounceMs;
+        private final long maxWaitMs;
+        private final long timeoutMs;
+        private final List<String> uniqueKey;
+        private final List<String> sources;
+
+        private Policy(CronExpression cron, long debounceMs, long maxWaitMs, long timeoutMs,
+                       List<String> uniqueKey, List<String> sources) {
+            this.cron = cron;
+            this.debounceMs = debounceMs;
+            this.maxWaitMs = maxWaitMs;
+            this.timeoutMs = timeoutMs;
+            this.uniqueKey = uniqueKey;
+            this.sources = sources;
+        }
+    }
+
+    private static class Dirty {
+        private final long firstAt;
+        private final long lastAt;
+
+        private Dirty(long firstAt, long lastAt) {
+            this.firstAt = firstAt;
+            this.lastAt = lastAt;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.quickform.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.quickform.api.dto.RawJson;
+import com.quickform.api.exception.BadRequestException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public abstract class RowStreamWriter {
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final int FLUSH_EVERY = 500;
+
+    private int pending;
+
+    public static String normalizeFormat(String format) {
+        String f = format == null || format.isBlank() ? NDJSON : format.trim().toLowerCase(Locale.ROOT);
+        if (!NDJSON.equals(f) && !CSV.equals(f)) {
+            throw new BadRequestException("invalid format");
+        }
+        return f;
+    }
+
+    public static String contentType(String format) {
+        return CSV.equals(normalizeFormat(format)) ? "text/csv;charset=UTF-8" : "application/x-ndjson";
+    }
+
+    public static RowStreamWriter create(String format, OutputStream out, List<String> csvColumns, JsonHelper jsonHelper) {
+        if (CSV.equals(normalizeFormat(format))) {
+            return new Csv(out, csvColumns, jsonHelper);
+        }
+        return new Ndjson(jsonHelper.createGenerator(out));
+    }
+
+    public void write(Map<String, Object> row) {
+        try {
+            writeRow(row);
+            if (++pending >= FLUSH_EVERY) {
+                pending = 0;
+                flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void finish() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    protected abstract void writeRow(Map<String, Object> row) throws IOException;
+
+    protected abstract void flush() throws IOException;
+
+    private static class Ndjson extends RowStreamWriter {
+        private final JsonGenerator generator;
+
+        private Ndjson(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        protected void writeRow(Map<String, Object> row) throws IOException {
+            generator.writeObject(row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class Csv extends RowStreamWriter {
+        private final BufferedWriter writer;
+        private final List<String> columns;
+        private final JsonHelper jsonHelper;
+        private boolean headerWritten;
+
+        private Csv(OutputStream out, List<String> columns, JsonHelper jsonHelper) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.columns = columns;
+            this.jsonHelper = jsonHelper;
+        }
+
+        @Override
+        protected void writeRow(Map<String, Object> row) throws IOException {
+            if (!headerWritten) {
+                writeLine(columns, null);
+                headerWritten = true;
+            }
+            writeLine(columns, row);
+        }
+
+        private void writeLine(List<String> columns, Map<String, Object> row) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String column = columns.get(i);
+                writer.write(escape(row == null ? column : cell(row.get(column))));
+            }
+            writer.write("\r\n");
+        }
+
+        private String cell(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof RawJson || value instanceof String || value instanceof Number
+                || value instanceof Boolean) {
+                return value.toString();
+            }
+            if (value instanceof Timestamp timestamp) {
+                return timestamp.toLocalDateTime().toString();
+            }
+            if (value instanceof Map<?, ?> || value instanceof List<?>) {
+                return jsonHelper.toJson(value);
+            }
+            return value.toString();
+        }
+
+        private String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            if (!headerWritten) {
+                writeLine(columns, null);
+                headerWritten = true;
+            }
+            writer.flush();
+        }
+    }
+}
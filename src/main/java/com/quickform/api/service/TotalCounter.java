@@ -0,0 +1,111 @@
+package com.quickform.api.service;
+
+import com.quickform.api.dto.PageResult;
+import com.quickform.api.exception.BadRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+@Component
+public class TotalCounter {
+    public static final String EXACT = "exact";
+    public static final String NONE = "none";
+    public static final String ESTIMATE = "estimate";
+    public static final String CAPPED = "capped";
+
+    private static final int DEFAULT_CAP = 1000;
+    private static final int MAX_CAP = 100000;
+
+    private final JsonHelper jsonHelper;
+
+    public TotalCounter(JsonHelper jsonHelper) {
+        this.jsonHelper = jsonHelper;
+    }
+
+    public Total count(String totalMode, Integer totalCap,
+                       Supplier<Long> exact, IntFunction<Long> capped, Supplier<String> explain) {
+        String mode = normalizeMode(totalMode);
+        int cap = normalizeCap(totalCap);
+        switch (mode) {
+            case NONE:
+                return new Total(-1, NONE, false);
+            case CAPPED:
+                return countCapped(capped, cap, CAPPED);
+            case ESTIMATE:
+                long estimated = planRows(explain.get());
+                // Planner estimates are poor on small sets, where a real count is cheap anyway.
+                if (estimated <= DEFAULT_CAP) {
+                    return countCapped(capped, DEFAULT_CAP, ESTIMATE);
+                }
+                return new Total(estimated, ESTIMATE, false);
+            default:
+                Long total = exact.get();
+                return new Total(total == null ? 0 : total, EXACT, true);
+        }
+    }
+
+    private Total countCapped(IntFunction<Long> capped, int cap, String mode) {
+        Long counted = capped.apply(cap + 1);
+        long value = counted == null ? 0 : counted;
+        return new Total(value, mode, value <= cap);
+    }
+
+    private String normalizeMode(String totalMode) {
+        if (totalMode == null || totalMode.isBlank()) {
+            return EXACT;
+        }
+        String mode = totalMode.trim().toLowerCase(Locale.ROOT);
+        if (!EXACT.equals(mode) && !NONE.equals(mode) && !ESTIMATE.equals(mode) && !CAPPED.equals(mode)) {
+            throw new BadRequestException("invalid totalMode");
+        }
+        return mode;
+    }
+
+    private int normalizeCap(Integer totalCap) {
+        if (totalCap == null || totalCap < 1) {
+            return DEFAULT_CAP;
+        }
+        return Math.min(totalCap, MAX_CAP);
+    }
+
+    private long planRows(String planJson) {
+        if (planJson == null) {
+            return 0;
+        }
+        List<?> plans = jsonHelper.toObject(planJson, List.class);
+        if (plans == null || plans.isEmpty() || !(plans.get(0) instanceof Map<?, ?> root)) {
+            return 0;
+        }
+        if (!(root.get("Plan") instanceof Map<?, ?> plan) || !(plan.get("Plan Rows") instanceof Number rows)) {
+            return 0;
+        }
+        return rows.longValue();
+    }
+
+    public static class Total {
+        private final long value;
+        private final String mode;
+        private final boolean exact;
+
+        private Total(long value, String mode, boolean exact) {
+            this.value = value;
+            this.mode = mode;
+            this.exact = exact;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public <T> PageResult<T> toPageResult(List<T> items, int page, int pageSize) {
+            PageResult<T> result = new PageResult<>(items, value, page, pageSize);
+            result.setTotalMode(mode);
+            result.setTotalExact(exact);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.quickform.api.service;
+
+import com.quickform.api.mapper.WorkflowArchiveMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves instances finished more than after-months ago, together with their tasks, from the hot workflow tables
+ * into the archive tables, partitioned by month of updated_at. The done/my-apply lists can be limited to archive
+ * rows updated within query-months (unbounded by default), which then prunes the older partitions.
+ */
+@Component
+public class WorkflowArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowArchiveService.class);
+    private static final LocalDateTime UNBOUNDED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final WorkflowArchiveMapper archiveMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int afterMonths;
+    private final int batchSize;
+    private final long intervalMs;
+    private final int queryMonths;
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong archivedInstances = new AtomicLong();
+    private final AtomicLong archivedTasks = new AtomicLong();
+    private volatile long lastRunAt;
+    private volatile long lastRunMs;
+    private volatile String lastError;
+    private volatile boolean running;
+    private Thread worker;
+
+    public WorkflowArchiveService(WorkflowArchiveMapper archiveMapper,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${quickform.workflow.archive.enabled:true}") boolean enabled,
+                                  @Value("${quickform.workflow.archive.after-months:6}") int afterMonths,
+                                  @Value("${quickform.workflow.archive.batch-size:1000}") int batchSize,
+                                  @Value("${quickform.workflow.archive.interval-ms:3600000}") long intervalMs,
+                                  @Value("${quickform.workflow.archive.query-months:0}") int queryMonths) {
+        this.archiveMapper = archiveMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.afterMonths = afterMonths;
+        this.batchSize = batchSize;
+        this.intervalMs = intervalMs;
+        this.queryMonths = queryMonths;
+    }
+
+    /**
+     * Lower bound on archived updated_at for the done/my-apply lists.
+     */
+    public LocalDateTime queryFrom() {
+        return queryMonths <= 0 ? UNBOUNDED : LocalDateTime.now().minusMonths(queryMonths);
+    }
+
+    /**
+     * Archives everything currently eligible, one batch per transaction.
+     */
+    public Map<String, Object> run() {
+        long started = System.currentTimeMillis();
+        // A fixed cutoff keeps the batches within the partitions created below.
+        LocalDateTime cutoff = LocalDateTime.now().minusMonths(afterMonths);
+        long instances = 0;
+        long tasks = 0;
+        int partitions = 0;
+        try {
+            LocalDateTime oldest = archiveMapper.findOldestArchivable(cutoff);
+            if (oldest != null) {
+                // Archived rows are partitioned on updated_at, which lies between the instance start and now.
+                partitions = archiveMapper.ensurePartitions(oldest, LocalDateTime.now());
+                while (true) {
+                    Map<String, Object> batch = transactionTemplate.execute(
+                        status -> archiveMapper.archiveBatch(cutoff, batchSize));
+                    long moved = count(batch, "instances");
+                    instances += moved;
+                    tasks += count(batch, "tasks");
+                    if (moved < batchSize) {
+                        break;
+                    }
+                }
+            }
+            lastError = null;
+        } catch (RuntimeException ex) {
+            lastError = ex.getMessage();
+            throw ex;
+        } finally {
+            runs.incrementAndGet();
+            archivedInstances.addAndGet(instances);
+            archivedTasks.addAndGet(tasks);
+            lastRunAt = System.currentTimeMillis();
+            lastRunMs = lastRunAt - started;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cutoff", cutoff);
+        result.put("instances", instances);
+        result.put("tasks", tasks);
+        result.put("partitionsCreated", partitions);
+        result.put("elapsedMs", lastRunMs);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> row = archiveMapper.archiveStats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running && worker != null && worker.isAlive());
+        stats.put("afterMonths", afterMonths);
+        stats.put("queryMonths", queryMonths);
+        stats.put("instancePartitions", row == null ? 0 : row.get("instance_partitions"));
+        stats.put("taskPartitions", row == null ? 0 : row.get("task_partitions"));
+        stats.put("oldestFinished", row == null ? null : row.get("oldest_finished"));
+        stats.put("runs", runs.get());
+        stats.put("archivedInstances", archivedInstances.get());
+        stats.put("archivedTasks", archivedTasks.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMs", lastRunMs);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private long count(Map<String, Object> row, String key) {
+        Object value = row == null ? null : row.get(key);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "workflow-archive");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                Map<String, Object> result = run();
+                if (((Number) result.get("instances")).longValue() > 0) {
+                    log.info("archived {} workflow instances and {} tasks", result.get("instances"), result.get("tasks"));
+                }
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("workflow archive failed: {}", ex.getMessage());
+            }
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.quickform.api.service;
+
+import com.quickform.api.model.WorkflowEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Republishes outbox events as Spring application events for in-process {@code @EventListener}s.
+ * A listener that throws causes the events to be retried.
+ */
+@Component
+public class WorkflowEventApplicationSink implements WorkflowEventSink {
+    private final ApplicationEventPublisher publisher;
+    private final boolean enabled;
+
+    public WorkflowEventApplicationSink(ApplicationEventPublisher publisher,
+                                        @Value("${quickform.workflow.outbox.application-events:true}") boolean enabled) {
+        this.publisher = publisher;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String name() {
+        return "application";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void deliver(List<WorkflowEvent> events) {
+        for (WorkflowEvent event : events) {
+            publisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.quickform.api.service;
+
+import com.quickform.api.mapper.WorkflowEventMapper;
+import com.quickform.api.model.WorkflowEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the workflow_event outbox. A batch is claimed by setting a lease in a short transaction of its own, so
+ * sinks run with no transaction open and several nodes can dispatch at once. Only instances whose first
+ * undelivered event (in seq order) is due are claimed, together with the events queued behind it, which keeps
+ * per-instance order and stops an instance that is being retried from filling the batch.
+ */
+@Component
+public class WorkflowEventDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowEventDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 10 * 60 * 1000L;
+    private static final long PURGE_INTERVAL_MS = 60 * 60 * 1000L;
+    private static final int PURGE_CHUNK = 10000;
+    private static final long RATE_WINDOW_MS = 60 * 1000L;
+
+    private final WorkflowEventMapper eventMapper;
+    private final List<WorkflowEventSink> sinks;
+    private final JsonHelper jsonHelper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollMs;
+    private final long retryDelayMs;
+    private final long leaseMs;
+    private final int retentionDays;
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastDeliveryLagMs;
+    private volatile long lastBatchAt;
+    private volatile double eventsPerSecond;
+    private long windowStart = System.currentTimeMillis();
+    private long windowCount;
+    private long lastPurgeAt;
+    private volatile boolean running;
+    private Thread worker;
+
+    public WorkflowEventDispatcher(WorkflowEventMapper eventMapper,
+                                   List<WorkflowEventSink> sinks,
+                                   JsonHelper jsonHelper,
+                                   @Value("${quickform.workflow.outbox.enabled:true}") boolean enabled,
+                                   @Value("${quickform.workflow.outbox.batch-size:200}") int batchSize,
+                                   @Value("${quickform.workflow.outbox.poll-ms:1000}") long pollMs,
+                                   @Value("${quickform.workflow.outbox.retry-delay-ms:1000}") long retryDelayMs,
+                                   @Value("${quickform.workflow.outbox.lease-ms:300000}") long leaseMs,
+                                   @Value("${quickform.workflow.outbox.retention-days:7}") int retentionDays) {
+        this.eventMapper = eventMapper;
+        this.sinks = sinks;
+        this.jsonHelper = jsonHelper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollMs = pollMs;
+        this.retryDelayMs = retryDelayMs;
+        this.leaseMs = leaseMs;
+        this.retentionDays = retentionDays;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> row = eventMapper.outboxStats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running && worker != null && worker.isAlive());
+        stats.put("pending", row == null ? 0 : row.get("pending"));
+        stats.put("retrying", row == null ? 0 : row.get("retrying"));
+        Object lag = row == null ? null : row.get("lag_ms");
+        stats.put("lagMs", lag == null ? 0 : ((Number) lag).longValue());
+        stats.put("lastDeliveryLagMs", lastDeliveryLagMs);
+        stats.put("eventsPerSecond", eventsPerSecond);
+        stats.put("dispatched", dispatched.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        stats.put("lastBatchAt", lastBatchAt);
+        List<String> active = new ArrayList<>();
+        for (WorkflowEventSink sink : sinks) {
+            if (sink.isEnabled()) {
+                active.add(sink.name());
+            }
+        }
+        stats.put("sinks", active);
+        return stats;
+    }
+
+    /**
+     * Delivers one batch and returns the number of events claimed.
+     */
+    public int dispatchOnce() {
+        String token = UUID.randomUUID().toString();
+        // Stop starting new deliveries well before the lease runs out, so no other node picks them up meanwhile.
+        long deadline = System.currentTimeMillis() + leaseMs / 2;
+        List<Map<String, Object>> rows = new ArrayList<>(eventMapper.claimHeads(batchSize, token, leaseMs));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (rows.size() < batchSize) {
+            Set<Long> instanceIds = new LinkedHashSet<>();
+            for (Map<String, Object> row : rows) {
+                instanceIds.add(((Number) row.get("instance_id")).longValue());
+            }
+            rows.addAll(eventMapper.claimFollowers(instanceIds.toArray(new Long[0]), batchSize - rows.size(), token,
+                leaseMs));
+        }
+        rows.sort(Comparator.comparingLong((Map<String, Object> row) -> ((Number) row.get("seq")).longValue())
+            .thenComparingLong(row -> ((Number) row.get("id")).longValue()));
+        Map<Long, List<WorkflowEvent>> byInstance = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            WorkflowEvent event = toEvent(row);
+            byInstance.computeIfAbsent(event.getInstanceId(), key -> new ArrayList<>()).add(event);
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        List<Long> released = new ArrayList<>();
+        for (Map.Entry<Long, List<WorkflowEvent>> entry : byInstance.entrySet()) {
+            List<WorkflowEvent> events = entry.getValue();
+            WorkflowEvent first = events.get(0);
+            if (System.currentTimeMillis() > deadline) {
+                events.forEach(event -> released.add(event.getId()));
+                continue;
+            }
+            try {
+                for (WorkflowEventSink sink : sinks) {
+                    if (sink.isEnabled()) {
+                        sink.deliver(events);
+                    }
+                }
+            } catch (Exception ex) {
+                // Later events of this instance stay pending behind the failed head until it succeeds.
+                failed.incrementAndGet();
+                long delay = Math.min(MAX_RETRY_DELAY_MS, retryDelayMs << Math.min(first.getAttempts(), 20));
+                eventMapper.markFailed(first.getId(), token, truncate(ex.toString()), delay);
+                events.subList(1, events.size()).forEach(event -> released.add(event.getId()));
+                log.warn("workflow event {} delivery failed (attempt {}): {}", first.getId(), first.getAttempts() + 1,
+                    ex.getMessage());
+                continue;
+            }
+            for (WorkflowEvent event : events) {
+                delivered.add(event.getId());
+            }
+            if (first.getCreatedAt() != null) {
+                lastDeliveryLagMs = Duration.between(first.getCreatedAt(), LocalDateTime.now()).toMillis();
+            }
+        }
+        if (!delivered.isEmpty()) {
+            eventMapper.markDispatched(delivered.toArray(new Long[0]));
+            dispatched.addAndGet(delivered.size());
+        }
+        if (!released.isEmpty()) {
+            eventMapper.releaseLease(released.toArray(new Long[0]), token);
+        }
+        batches.incrementAndGet();
+        recordRate(delivered.size());
+        return rows.size();
+    }
+
+    private synchronized void recordRate(long count) {
+        long now = System.currentTimeMillis();
+        lastBatchAt = now;
+        windowCount += count;
+        if (now - windowStart >= RATE_WINDOW_MS) {
+            eventsPerSecond = windowCount * 1000.0 / (now - windowStart);
+            windowStart = now;
+            windowCount = 0;
+        }
+    }
+
+    private WorkflowEvent toEvent(Map<String, Object> row) {
+        WorkflowEvent event = new WorkflowEvent();
+        event.setId(((Number) row.get("id")).longValue());
+        event.setEventType((String) row.get("event_type"));
+        event.setInstanceId(((Number) row.get("instance_id")).longValue());
+        event.setPageCode((String) row.get("page_code"));
+        Object recordId = row.get("record_id");
+        event.setRecordId(recordId instanceof UUID uuid ? uuid : recordId == null ? null : UUID.fromString(recordId.toString()));
+        event.setNodeCode((String) row.get("node_code"));
+        Object taskId = row.get("task_id");
+        event.setTaskId(taskId == null ? null : ((Number) taskId).longValue());
+        event.setActor((String) row.get("actor"));
+        event.setPayload(jsonHelper.toMap(row.get("payload")));
+        Object createdAt = row.get("created_at");
+        event.setCreatedAt(createdAt instanceof Timestamp ts ? ts.toLocalDateTime() : null);
+        Object attempts = row.get("attempts");
+        event.setAttempts(attempts == null ? 0 : ((Number) attempts).intValue());
+        return event;
+    }
+
+    private String truncate(String value) {
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "workflow-event-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                int claimed = dispatchOnce();
+                purgeIfDue();
+                if (claimed < batchSize) {
+                    Thread.sleep(pollMs);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("workflow event dispatch failed: {}", ex.getMessage());
+                try {
+                    Thread.sleep(pollMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeAt < PURGE_INTERVAL_MS) {
+            return;
+        }
+        lastPurgeAt = now;
+        int purged;
+        do {
+            purged = eventMapper.purgeDispatched(retentionDays, PURGE_CHUNK);
+        } while (purged == PURGE_CHUNK && running);
+    }
+}
@@ -0,0 +1,47 @@
+package com.quickform.api.service;
+
+import com.quickform.api.model.WorkflowEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as NDJSON. Lines are written with DSYNC so a delivered event survives a crash; a crash
+ * between the write and the outbox update can repeat lines, which consumers should dedupe by id.
+ */
+@Component
+public class WorkflowEventFileSink implements WorkflowEventSink {
+    private final JsonHelper jsonHelper;
+    private final Path path;
+
+    public WorkflowEventFileSink(JsonHelper jsonHelper,
+                                 @Value("${quickform.workflow.outbox.file.path:}") String path) {
+        this.jsonHelper = jsonHelper;
+        this.path = path == null || path.isBlank() ? null : Path.of(path.trim());
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    @Override
+    public synchronized void deliver(List<WorkflowEvent> events) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (WorkflowEvent event : events) {
+            sb.append(jsonHelper.toJson(event)).append('\n');
+        }
+        Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+    }
+}
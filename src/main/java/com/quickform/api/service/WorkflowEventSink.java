@@ -0,0 +1,17 @@
+package com.quickform.api.service;
+
+import com.quickform.api.model.WorkflowEvent;
+
+import java.util.List;
+
+/**
+ * Destination for workflow outbox events. Every enabled sink receives each event at least once; the events
+ * passed in one call belong to a single instance and are in commit order.
+ */
+public interface WorkflowEventSink {
+    String name();
+
+    boolean isEnabled();
+
+    void deliver(List<WorkflowEvent> events) throws Exception;
+}
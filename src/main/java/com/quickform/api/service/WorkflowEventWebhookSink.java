@@ -0,0 +1,52 @@
+package com.quickform.api.service;
+
+import com.quickform.api.model.WorkflowEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+@Component
+public class WorkflowEventWebhookSink implements WorkflowEventSink {
+    private final JsonHelper jsonHelper;
+    private final String url;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    public WorkflowEventWebhookSink(JsonHelper jsonHelper,
+                                    @Value("${quickform.workflow.outbox.webhook.url:}") String url,
+                                    @Value("${quickform.workflow.outbox.webhook.timeout-ms:5000}") long timeoutMs) {
+        this.jsonHelper = jsonHelper;
+        this.url = url == null ? "" : url.trim();
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !url.isEmpty();
+    }
+
+    @Override
+    public void deliver(List<WorkflowEvent> events) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(jsonHelper.toJson(events)))
+            .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("webhook returned " + response.statusCode());
+        }
+    }
+}
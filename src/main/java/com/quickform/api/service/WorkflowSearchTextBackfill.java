@@ -0,0 +1,89 @@
+package com.quickform.api.service;
+
+import com.quickform.api.mapper.WorkflowMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Fills workflow_instance/workflow_task search_text for rows written before the column and its trigger existed.
+ * Walks each table by id in committed chunks and records progress in schema_backfill, so a restart resumes and a
+ * finished table is never scanned again.
+ */
+@Service
+public class WorkflowSearchTextBackfill {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowSearchTextBackfill.class);
+
+    private final WorkflowMapper workflowMapper;
+    private final int chunkSize;
+    private final boolean enabled;
+    private volatile boolean running;
+    private Thread backfiller;
+
+    public WorkflowSearchTextBackfill(WorkflowMapper workflowMapper,
+                                      @Value("${quickform.workflow.search.backfill-chunk-size:5000}") int chunkSize,
+                                      @Value("${quickform.workflow.search.backfill:true}") boolean enabled) {
+        this.workflowMapper = workflowMapper;
+        this.chunkSize = chunkSize;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        backfiller = new Thread(() -> {
+            if (backfill("workflow_instance.search_text", workflowMapper::backfillInstanceSearchText)) {
+                backfill("workflow_task.search_text", workflowMapper::backfillTaskSearchText);
+            }
+        }, "workflow-search-backfill");
+        backfiller.setDaemon(true);
+        backfiller.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (backfiller != null) {
+            backfiller.interrupt();
+        }
+    }
+
+    private boolean backfill(String name, BiFunction<Long, Integer, Map<String, Object>> chunk) {
+        long rows = 0;
+        try {
+            Map<String, Object> progress = workflowMapper.getBackfillProgress(name);
+            if (progress != null && progress.get("finished_at") != null) {
+                return true;
+            }
+            long afterId = progress == null ? 0 : ((Number) progress.get("last_id")).longValue();
+            while (running) {
+                Map<String, Object> result = chunk.apply(afterId, chunkSize);
+                long scanned = ((Number) result.get("scanned")).longValue();
+                if (scanned == 0) {
+                    workflowMapper.saveBackfillProgress(name, afterId, true);
+                    if (rows > 0) {
+                        log.info("{} backfilled for {} rows", name, rows);
+                    }
+                    return true;
+                }
+                rows += ((Number) result.get("rows")).longValue();
+                afterId = ((Number) result.get("last_id")).longValue();
+                workflowMapper.saveBackfillProgress(name, afterId, false);
+            }
+        } catch (RuntimeException ex) {
+            if (running) {
+                log.warn("{} backfill stopped after {} rows, resumed on next start: {}", name, rows, ex.getMessage());
+            }
+        }
+        return false;
+    }
+}
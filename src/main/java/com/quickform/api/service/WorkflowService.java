@@ -6,9 +6,13 @@ import com.quickform.api.exception.NotFoundException;
 import com.quickform.api.mapper.WorkflowMapper;
 import com.quickform.api.model.WorkflowConfig;
 import com.quickform.api.model.WorkflowNode;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -19,10 +23,35 @@ public class WorkflowService {
 
     private final WorkflowMapper workflowMapper;
     private final JsonHelper jsonHelper;
-
-    public WorkflowService(WorkflowMapper workflowMapper, JsonHelper jsonHelper) {
+    private final TotalCounter totalCounter;
+    private final WorkflowTemplateCache templateCache;
+    private final WorkflowTodoCounter todoCounter;
+    private final WorkflowTaskEventHub taskEventHub;
+    private final WorkflowArchiveService archiveService;
+    private final boolean singleRoundTrip;
+    private final int batchMaxSize;
+    private final int submitBatchMaxSize;
+
+    public WorkflowService(WorkflowMapper workflowMapper,
+                           JsonHelper jsonHelper,
+                           TotalCounter totalCounter,
+                           WorkflowTemplateCache templateCache,
+                           WorkflowTodoCounter todoCounter,
+                           WorkflowTaskEventHub taskEventHub,
+                           WorkflowArchiveService archiveService,
+                           @Value("${quickform.workflow.single-round-trip:true}") boolean singleRoundTrip,
+                           @Value("${quickform.workflow.batch-max-size:500}") int batchMaxSize,
+                           @Value("${quickform.workflow.submit-batch-max-size:5000}") int submitBatchMaxSize) {
         this.workflowMapper = workflowMapper;
         this.jsonHelper = jsonHelper;
+        this.totalCounter = totalCounter;
+        this.templateCache = templateCache;
+        this.todoCounter = todoCounter;
+        this.taskEventHub = taskEventHub;
+        this.archiveService = archiveService;
+        this.singleRoundTrip = singleRoundTrip;
+        this.batchMaxSize = batchMaxSize;
+        this.submitBatchMaxSize = submitBatchMaxSize;
     }
 
     public PageResult<Map<String, Object>> listTemplates(WorkflowTemplateListRequest request) {
@@ -49,7 +78,7 @@ public class WorkflowService {
             item.put("enabled", bool(pick(row, "enabled"), true));
             item.put("isDefault", bool(pick(row, "is_default", "isDefault"), false));
             item.put("updatedAt", pick(row, "updated_at", "updatedAt"));
-            WorkflowConfig config = parseConfig(pick(row, "config_json", "configJson"));
+            WorkflowConfig config = templateCache.parseConfig(pick(row, "config_json", "configJson"));
             item.put("nodeCount", config.getNodes().size());
             items.add(item);
         }
@@ -87,7 +116,7 @@ public class WorkflowService {
 
         String configJson = jsonHelper.toJson(request.getConfig());
         WorkflowConfig config = jsonHelper.toObject(configJson, WorkflowConfig.class);
-        validateConfig(config);
+        templateCache.validateConfig(config);
         configJson = jsonHelper.toJson(config);
 
         Map<String, Object> existed = workflowMapper.getTemplate(pageCode, templateCode);
@@ -99,6 +128,7 @@ public class WorkflowService {
         if (isDefault) {
             workflowMapper.clearDefaultByPage(pageCode);
         }
+        templateCache.invalidateOnCommit(pageCode);
 
         if (existed == null) {
             Long id = workflowMapper.insertTemplate(pageCode, templateCode, request.getName().trim(), configJson, enabled, isDefault);
@@ -128,6 +158,7 @@ public class WorkflowService {
         if (pending != null && pending > 0) {
             throw new BadRequestException("template has pending tasks");
         }
+        templateCache.invalidateOnCommit(pageCode);
         return workflowMapper.deleteTemplate(pageCode, templateCode);
     }
 
@@ -149,6 +180,7 @@ public class WorkflowService {
             throw new BadRequestException("disabled template cannot be default");
         }
         workflowMapper.clearDefaultByPage(pageCode);
+        templateCache.invalidateOnCommit(pageCode);
         return workflowMapper.updateTemplateDefault(toLong(pick(template, "id"), 0L), true);
     }
 
@@ -168,22 +200,19 @@ public class WorkflowService {
         }
 
         String requestedTemplateCode = request == null ? null : trimToNull(request.getTemplateCode());
-        Map<String, Object> template = requestedTemplateCode == null
-            ? workflowMapper.getDefaultTemplate(pageCode)
-            : workflowMapper.getTemplate(pageCode, requestedTemplateCode);
+        WorkflowTemplateCache.Template template = requestedTemplateCode == null
+            ? templateCache.getDefault(pageCode)
+            : templateCache.get(pageCode, requestedTemplateCode);
         if (template == null) {
             throw new BadRequestException("workflow template not found");
         }
-        if (!bool(pick(template, "enabled"), true)) {
+        if (!template.isEnabled()) {
             throw new BadRequestException("workflow template is disabled");
         }
 
-        String templateCode = str(pick(template, "template_code", "templateCode"));
-        Long templateId = toLongObj(pick(template, "id"));
-        WorkflowConfig config = parseConfig(pick(template, "config_json", "configJson"));
-        validateConfig(config);
-
-        WorkflowNode firstNode = config.getNodes().get(0);
+        String templateCode = template.getTemplateCode();
+        Long templateId = template.getId();
+        WorkflowNode firstNode = template.firstNode();
         Long instanceId = workflowMapper.insertInstance(pageCode, recordId, templateId, templateCode, operator, firstNode.getCode());
         if (instanceId == null || instanceId <= 0) {
             throw new BadRequestException("failed to create workflow instance");
@@ -196,18 +225,15 @@ public class WorkflowService {
     public int approve(String pageCode, UUID recordId, WorkflowActionRequest request) {
         validatePageCode(pageCode);
         String operator = requireOperator(request);
+        if (singleRoundTrip) {
+            return act(pageCode, recordId, request, operator, "approve");
+        }
         Map<String, Object> instance = requireActiveInstance(recordId, pageCode);
 
-        String templateCode = str(pick(instance, "template_code", "templateCode"));
-        Map<String, Object> template = workflowMapper.getTemplate(pageCode, templateCode);
-        if (template == null) {
-            throw new NotFoundException("workflow template not found");
-        }
-        WorkflowConfig config = parseConfig(pick(template, "config_json", "configJson"));
-        validateConfig(config);
+        WorkflowTemplateCache.Template template = requireInstanceTemplate(instance, pageCode);
 
         long instanceId = toLong(pick(instance, "id"), 0L);
-        WorkflowNode node = resolveNode(config, instanceId, request);
+        WorkflowNode node = resolveNode(template, instanceId, request);
         if (node == null) {
             throw new BadRequestException("no active node");
         }
@@ -230,9 +256,9 @@ public class WorkflowService {
         }
 
         if (nodeCompleted) {
-            WorkflowNode nextNode = nextNode(config, node.getCode());
+            WorkflowNode nextNode = template.nextNode(node.getCode());
             if (nextNode != null) {
-                createTasks(instanceId, recordId, pageCode, toLongObj(pick(template, "id")), templateCode, nextNode, null);
+                createTasks(instanceId, recordId, pageCode, template.getId(), template.getTemplateCode(), nextNode, null);
                 workflowMapper.updateInstanceCurrentNode(instanceId, nextNode.getCode());
             } else {
                 workflowMapper.completeInstance(instanceId, "approved");
@@ -245,18 +271,15 @@ public class WorkflowService {
     public int reject(String pageCode, UUID recordId, WorkflowActionRequest request) {
         validatePageCode(pageCode);
         String operator = requireOperator(request);
+        if (singleRoundTrip) {
+            return act(pageCode, recordId, request, operator, "reject");
+        }
         Map<String, Object> instance = requireActiveInstance(recordId, pageCode);
 
-        String templateCode = str(pick(instance, "template_code", "templateCode"));
-        Map<String, Object> template = workflowMapper.getTemplate(pageCode, templateCode);
-        if (template == null) {
-            throw new NotFoundException("workflow template not found");
-        }
-        WorkflowConfig config = parseConfig(pick(template, "config_json", "configJson"));
-        validateConfig(config);
+        WorkflowTemplateCache.Template template = requireInstanceTemplate(instance, pageCode);
 
         long instanceId = toLong(pick(instance, "id"), 0L);
-        WorkflowNode node = resolveNode(config, instanceId, request);
+        WorkflowNode node = resolveNode(template, instanceId, request);
         if (node == null) {
             throw new BadRequestException("no active node");
         }
@@ -274,6 +297,378 @@ public class WorkflowService {
         return 1;
     }
 
+    private int act(String pageCode, UUID recordId, WorkflowActionRequest request, String operator, String action) {
+        Map<String, Object> instance = workflowMapper.lockActiveInstance(recordId, pageCode);
+        if (instance == null) {
+            throw new BadRequestException("no active workflow instance");
+        }
+        WorkflowTemplateCache.Template template = requireInstanceTemplate(instance, pageCode);
+        long instanceId = toLong(pick(instance, "id"), 0L);
+        boolean reject = "reject".equals(action);
+
+        List<String> nodeOrder = new ArrayList<>();
+        List<String> anyNodes = new ArrayList<>();
+        for (WorkflowNode node : template.getConfig().getNodes()) {
+            nodeOrder.add(node.getCode());
+            if ("any".equals(nodeMode(node))) {
+                anyNodes.add(node.getCode());
+            }
+        }
+        Map<String, Object> result = workflowMapper.completeActiveTask(instanceId,
+            request == null ? null : trimToNull(request.getNodeCode()), operator, action,
+            request == null ? null : request.getComment(),
+            nodeOrder.toArray(new String[0]), anyNodes.toArray(new String[0]),
+            reject, reject ? "rejected" : null);
+
+        WorkflowNode node = template.findNode(str(pick(result, "node_code", "nodeCode")));
+        if (node == null) {
+            throw new BadRequestException("no active node");
+        }
+        if (pick(result, "task_id", "taskId") == null) {
+            throw new BadRequestException("no pending task for operator");
+        }
+        if (reject) {
+            return 1;
+        }
+
+        boolean nodeCompleted = "any".equals(nodeMode(node)) || toLong(pick(result, "remaining"), 0L) == 0;
+        if (nodeCompleted) {
+            WorkflowNode nextNode = template.nextNode(node.getCode());
+            if (nextNode != null) {
+                workflowMapper.advanceInstance(instanceId, recordId, pageCode, template.getId(), template.getTemplateCode(),
+                    nextNode.getCode(), taskAssignees(nextNode, null));
+            } else {
+                workflowMapper.completeInstance(instanceId, "approved");
+            }
+        }
+        return 1;
+    }
+
+    @Transactional
+    public Map<String, Object> batchSubmit(WorkflowBatchActionRequest request) {
+        if (request == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new BadRequestException("items required");
+        }
+        List<WorkflowBatchItem> items = request.getItems();
+        if (items.size() > submitBatchMaxSize) {
+            throw new BadRequestException("batch size exceeds " + submitBatchMaxSize);
+        }
+        String operator = trimToNull(request.getOperator());
+        if (operator == null) {
+            throw new BadRequestException("operator required");
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, Integer> indexByKey = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            WorkflowBatchItem item = items.get(i);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            result.put("pageCode", item == null ? null : item.getPageCode());
+            result.put("recordId", item == null ? null : item.getRecordId());
+            results.add(result);
+            if (item == null || item.getRecordId() == null) {
+                markFailed(result, "recordId required");
+            } else if (item.getPageCode() == null || !PAGE_CODE_PATTERN.matcher(item.getPageCode()).matches()) {
+                markFailed(result, "invalid page code");
+            } else if (indexByKey.putIfAbsent(instanceKey(item.getPageCode(), item.getRecordId()), i) != null) {
+                markFailed(result, "duplicate item in batch");
+            }
+        }
+        if (indexByKey.isEmpty()) {
+            return batchSummary(results);
+        }
+
+        String[] statePageCodes = new String[indexByKey.size()];
+        String[] stateRecordIds = new String[indexByKey.size()];
+        int k = 0;
+        for (Integer index : indexByKey.values()) {
+            statePageCodes[k] = items.get(index).getPageCode();
+            stateRecordIds[k] = items.get(index).getRecordId().toString();
+            k++;
+        }
+        Map<String, Map<String, Object>> states = new HashMap<>();
+        for (Map<String, Object> row : workflowMapper.findSubmitStates(statePageCodes, stateRecordIds)) {
+            states.put(instanceKey(str(pick(row, "page_code", "pageCode")), pick(row, "record_id", "recordId")), row);
+        }
+
+        List<String> pageCodes = new ArrayList<>();
+        List<String> recordIds = new ArrayList<>();
+        List<Long> templateIds = new ArrayList<>();
+        List<String> templateCodes = new ArrayList<>();
+        List<String> nodeCodes = new ArrayList<>();
+        List<String> taskPageCodes = new ArrayList<>();
+        List<String> taskRecordIds = new ArrayList<>();
+        List<String> taskAssignees = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : indexByKey.entrySet()) {
+            int index = entry.getValue();
+            WorkflowBatchItem item = items.get(index);
+            Map<String, Object> result = results.get(index);
+            Map<String, Object> state = states.get(entry.getKey());
+            if (state == null || !bool(pick(state, "record_exists", "recordExists"), false)) {
+                markFailed(result, "record not found");
+                continue;
+            }
+            if (bool(pick(state, "has_pending_tasks", "hasPendingTasks"), false)) {
+                markFailed(result, "record already has pending tasks");
+                continue;
+            }
+            if (bool(pick(state, "has_active_instance", "hasActiveInstance"), false)) {
+                markFailed(result, "workflow already submitted");
+                continue;
+            }
+            String templateCode = item.getTemplateCode() != null ? trimToNull(item.getTemplateCode())
+                : trimToNull(request.getTemplateCode());
+            WorkflowTemplateCache.Template template = templateCode == null
+                ? templateCache.getDefault(item.getPageCode())
+                : templateCache.get(item.getPageCode(), templateCode);
+            if (template == null) {
+                markFailed(result, "workflow template not found");
+                continue;
+            }
+            if (!template.isEnabled()) {
+                markFailed(result, "workflow template is disabled");
+                continue;
+            }
+            WorkflowNode firstNode = template.firstNode();
+            String recordId = item.getRecordId().toString();
+            pageCodes.add(item.getPageCode());
+            recordIds.add(recordId);
+            templateIds.add(template.getId());
+            templateCodes.add(template.getTemplateCode());
+            nodeCodes.add(firstNode.getCode());
+            for (String assignee : taskAssignees(firstNode, item.getAssignee())) {
+                taskPageCodes.add(item.getPageCode());
+                taskRecordIds.add(recordId);
+                taskAssignees.add(assignee);
+            }
+        }
+        if (pageCodes.isEmpty()) {
+            return batchSummary(results);
+        }
+
+        List<Map<String, Object>> started = workflowMapper.submitInstances(
+            pageCodes.toArray(new String[0]), recordIds.toArray(new String[0]), templateIds.toArray(new Long[0]),
+            templateCodes.toArray(new String[0]), nodeCodes.toArray(new String[0]), operator,
+            taskPageCodes.toArray(new String[0]), taskRecordIds.toArray(new String[0]), taskAssignees.toArray(new String[0]));
+        for (Map<String, Object> row : started) {
+            Map<String, Object> result = results.get(indexByKey.get(
+                instanceKey(str(pick(row, "page_code", "pageCode")), pick(row, "record_id", "recordId"))));
+            result.put("success", true);
+            result.put("instanceId", toLongObj(pick(row, "id")));
+            result.put("nodeCode", str(pick(row, "current_node_code", "currentNodeCode")));
+        }
+        for (int i = 0; i < pageCodes.size(); i++) {
+            Map<String, Object> result = results.get(indexByKey.get(instanceKey(pageCodes.get(i), recordIds.get(i))));
+            if (!result.containsKey("success")) {
+                markFailed(result, "workflow already submitted");
+            }
+        }
+        return batchSummary(results);
+    }
+
+    @Transactional
+    public Map<String, Object> batchApprove(WorkflowBatchActionRequest request) {
+        return batchAct(request, "approve");
+    }
+
+    @Transactional
+    public Map<String, Object> batchReject(WorkflowBatchActionRequest request) {
+        return batchAct(request, "reject");
+    }
+
+    private Map<String, Object> batchAct(WorkflowBatchActionRequest request, String action) {
+        if (request == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new BadRequestException("items required");
+        }
+        List<WorkflowBatchItem> items = request.getItems();
+        if (items.size() > batchMaxSize) {
+            throw new BadRequestException("batch size exceeds " + batchMaxSize);
+        }
+        String operator = trimToNull(request.getOperator());
+        if (operator == null) {
+            throw new BadRequestException("operator required");
+        }
+        boolean reject = "reject".equals(action);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, Integer> indexByKey = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            WorkflowBatchItem item = items.get(i);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            result.put("pageCode", item == null ? null : item.getPageCode());
+            result.put("recordId", item == null ? null : item.getRecordId());
+            results.add(result);
+            if (item == null || item.getRecordId() == null) {
+                markFailed(result, "recordId required");
+            } else if (item.getPageCode() == null || !PAGE_CODE_PATTERN.matcher(item.getPageCode()).matches()) {
+                markFailed(result, "invalid page code");
+            } else if (indexByKey.putIfAbsent(instanceKey(item.getPageCode(), item.getRecordId()), i) != null) {
+                markFailed(result, "duplicate item in batch");
+            }
+        }
+        if (indexByKey.isEmpty()) {
+            return batchSummary(results);
+        }
+
+        String[] pageCodes = new String[indexByKey.size()];
+        String[] recordIds = new String[indexByKey.size()];
+        int k = 0;
+        for (Integer index : indexByKey.values()) {
+            pageCodes[k] = items.get(index).getPageCode();
+            recordIds[k] = items.get(index).getRecordId().toString();
+            k++;
+        }
+        Map<String, Map<String, Object>> locked = new HashMap<>();
+        for (Map<String, Object> row : workflowMapper.lockActiveInstances(pageCodes, recordIds)) {
+            // Newest first, so a record with several submitted instances keeps the latest one.
+            locked.putIfAbsent(instanceKey(str(pick(row, "page_code", "pageCode")), pick(row, "record_id", "recordId")), row);
+        }
+        Set<String> busy = new HashSet<>();
+        if (locked.size() < indexByKey.size()) {
+            for (Map<String, Object> row : workflowMapper.findActiveInstances(pageCodes, recordIds)) {
+                busy.add(instanceKey(str(pick(row, "page_code", "pageCode")), pick(row, "record_id", "recordId")));
+            }
+        }
+
+        List<Long> instanceIds = new ArrayList<>();
+        List<String> nodeCodes = new ArrayList<>();
+        List<String> comments = new ArrayList<>();
+        List<Long> anyInstanceIds = new ArrayList<>();
+        List<String> anyNodeCodes = new ArrayList<>();
+        Map<Long, Integer> indexByInstance = new HashMap<>();
+        Map<Long, WorkflowTemplateCache.Template> templates = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : indexByKey.entrySet()) {
+            int index = entry.getValue();
+            WorkflowBatchItem item = items.get(index);
+            Map<String, Object> result = results.get(index);
+            Map<String, Object> instance = locked.get(entry.getKey());
+            if (instance == null) {
+                markFailed(result, busy.contains(entry.getKey()) ? "workflow instance is busy" : "no active workflow instance");
+                continue;
+            }
+            WorkflowTemplateCache.Template template;
+            try {
+                template = requireInstanceTemplate(instance, item.getPageCode());
+            } catch (NotFoundException ex) {
+                markFailed(result, ex.getMessage());
+                continue;
+            }
+            String nodeCode = trimToNull(item.getNodeCode());
+            if (nodeCode != null && template.findNode(nodeCode) == null) {
+                markFailed(result, "no active node");
+                continue;
+            }
+            long instanceId = toLong(pick(instance, "id"), 0L);
+            instanceIds.add(instanceId);
+            nodeCodes.add(nodeCode);
+            comments.add(item.getComment() != null ? item.getComment() : request.getComment());
+            indexByInstance.put(instanceId, index);
+            templates.put(instanceId, template);
+            for (WorkflowNode node : template.getConfig().getNodes()) {
+                if ("any".equals(nodeMode(node))) {
+                    anyInstanceIds.add(instanceId);
+                    anyNodeCodes.add(node.getCode());
+                }
+            }
+        }
+        if (instanceIds.isEmpty()) {
+            return batchSummary(results);
+        }
+
+        List<Map<String, Object>> completed = workflowMapper.completeActiveTasks(
+            instanceIds.toArray(new Long[0]), nodeCodes.toArray(new String[0]), comments.toArray(new String[0]),
+            operator, action, anyInstanceIds.toArray(new Long[0]), anyNodeCodes.toArray(new String[0]),
+            reject, reject ? "rejected" : null);
+
+        List<Long> advanceIds = new ArrayList<>();
+        List<String> advanceNodes = new ArrayList<>();
+        List<Long> taskInstanceIds = new ArrayList<>();
+        List<String> newAssignees = new ArrayList<>();
+        List<Long> approvedIds = new ArrayList<>();
+        for (Map<String, Object> row : completed) {
+            long instanceId = toLong(pick(row, "instance_id", "instanceId"), 0L);
+            Map<String, Object> result = results.get(indexByInstance.get(instanceId));
+            WorkflowTemplateCache.Template template = templates.get(instanceId);
+            WorkflowNode node = template.findNode(str(pick(row, "node_code", "nodeCode")));
+            if (node == null) {
+                markFailed(result, "no active node");
+                continue;
+            }
+            if (pick(row, "task_id", "taskId") == null) {
+                markFailed(result, "no pending task for operator");
+                continue;
+            }
+            result.put("success", true);
+            result.put("nodeCode", node.getCode());
+            if (reject || !("any".equals(nodeMode(node)) || toLong(pick(row, "remaining"), 0L) == 0)) {
+                continue;
+            }
+            WorkflowNode nextNode = template.nextNode(node.getCode());
+            if (nextNode == null) {
+                approvedIds.add(instanceId);
+                continue;
+            }
+            advanceIds.add(instanceId);
+            advanceNodes.add(nextNode.getCode());
+            for (String assignee : taskAssignees(nextNode, null)) {
+                taskInstanceIds.add(instanceId);
+                newAssignees.add(assignee);
+            }
+        }
+        if (!advanceIds.isEmpty()) {
+            workflowMapper.advanceInstances(advanceIds.toArray(new Long[0]), advanceNodes.toArray(new String[0]),
+                taskInstanceIds.toArray(new Long[0]), newAssignees.toArray(new String[0]));
+        }
+        if (!approvedIds.isEmpty()) {
+            workflowMapper.completeInstances(approvedIds.toArray(new Long[0]), "approved");
+        }
+        return batchSummary(results);
+    }
+
+    private String instanceKey(String pageCode, Object recordId) {
+        return pageCode + "|" + recordId;
+    }
+
+    private void markFailed(Map<String, Object> result, String message) {
+        result.put("success", false);
+        result.put("message", message);
+    }
+
+    private Map<String, Object> batchSummary(List<Map<String, Object>> results) {
+        int succeeded = 0;
+        for (Map<String, Object> result : results) {
+            if (Boolean.TRUE.equals(result.get("success"))) {
+                succeeded++;
+            }
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", results.size());
+        summary.put("succeeded", succeeded);
+        summary.put("failed", results.size() - succeeded);
+        summary.put("items", results);
+        return summary;
+    }
+
+    public Map<String, Object> todoSummary(WorkflowTodoSummaryRequest request) {
+        if (request == null || isBlank(request.getAssignee())) {
+            throw new BadRequestException("assignee required");
+        }
+        String pageCode = trimToNull(request.getPageCode());
+        if (pageCode != null) {
+            validatePageCode(pageCode);
+        }
+        return todoCounter.summary(request.getAssignee().trim(), pageCode);
+    }
+
+    public SseEmitter subscribeTodo(String assignee) {
+        if (isBlank(assignee)) {
+            throw new BadRequestException("assignee required");
+        }
+        return taskEventHub.subscribe(assignee.trim());
+    }
+
     public PageResult<Map<String, Object>> queryTodo(WorkflowTodoQueryRequest request) {
         if (request == null || isBlank(request.getAssignee())) {
             throw new BadRequestException("assignee required");
@@ -288,7 +683,10 @@ public class WorkflowService {
         int pageSize = normalizePageSize(request.getPageSize());
         int offset = (page - 1) * pageSize;
 
-        Long total = workflowMapper.countTodo(assignee, pageCode, keywords);
+        TotalCounter.Total total = totalCounter.count(request.getTotalMode(), request.getTotalCap(),
+            () -> workflowMapper.countTodo(assignee, pageCode, keywords, null),
+            limit -> workflowMapper.countTodo(assignee, pageCode, keywords, limit),
+            () -> workflowMapper.explainTodo(assignee, pageCode, keywords));
         List<Map<String, Object>> rows = workflowMapper.queryTodo(assignee, pageCode, keywords, pageSize, offset);
         List<Map<String, Object>> items = new ArrayList<>();
         for (Map<String, Object> row : rows) {
@@ -313,7 +711,7 @@ public class WorkflowService {
             item.put("updatedAt", pick(row, "task_updated_at", "taskUpdatedAt"));
             items.add(item);
         }
-        return new PageResult<>(items, total == null ? 0 : total, page, pageSize);
+        return total.toPageResult(items, page, pageSize);
     }
 
     public PageResult<Map<String, Object>> queryDone(WorkflowDoneQueryRequest request) {
@@ -329,9 +727,14 @@ public class WorkflowService {
         int page = normalizePage(request.getPage());
         int pageSize = normalizePageSize(request.getPageSize());
         int offset = (page - 1) * pageSize;
-
-        Long total = workflowMapper.countDone(operator, pageCode, keywords);
-        List<Map<String, Object>> rows = workflowMapper.queryDone(operator, pageCode, keywords, pageSize, offset);
+        LocalDateTime archiveFrom = archiveService.queryFrom();
+
+        TotalCounter.Total total = totalCounter.count(request.getTotalMode(), request.getTotalCap(),
+            () -> workflowMapper.countDone(operator, pageCode, keywords, null, archiveFrom),
+            limit -> workflowMapper.countDone(operator, pageCode, keywords, limit, archiveFrom),
+            () -> workflowMapper.explainDone(operator, pageCode, keywords, archiveFrom));
+        List<Map<String, Object>> rows = workflowMapper.queryDone(operator, pageCode, keywords, pageSize, offset,
+            archiveFrom);
         List<Map<String, Object>> items = new ArrayList<>();
         for (Map<String, Object> row : rows) {
             Map<String, Object> item = new LinkedHashMap<>();
@@ -356,7 +759,7 @@ public class WorkflowService {
             item.put("updatedAt", pick(row, "task_updated_at", "taskUpdatedAt"));
             items.add(item);
         }
-        return new PageResult<>(items, total == null ? 0 : total, page, pageSize);
+        return total.toPageResult(items, page, pageSize);
     }
 
     public PageResult<Map<String, Object>> queryMyApply(WorkflowMyApplyQueryRequest request) {
@@ -376,9 +779,14 @@ public class WorkflowService {
         int page = normalizePage(request.getPage());
         int pageSize = normalizePageSize(request.getPageSize());
         int offset = (page - 1) * pageSize;
-
-        Long total = workflowMapper.countMyApply(operator, pageCode, status, keywords);
-        List<Map<String, Object>> rows = workflowMapper.queryMyApply(operator, pageCode, status, keywords, pageSize, offset);
+        LocalDateTime archiveFrom = archiveService.queryFrom();
+
+        TotalCounter.Total total = totalCounter.count(request.getTotalMode(), request.getTotalCap(),
+            () -> workflowMapper.countMyApply(operator, pageCode, status, keywords, null, archiveFrom),
+            limit -> workflowMapper.countMyApply(operator, pageCode, status, keywords, limit, archiveFrom),
+            () -> workflowMapper.explainMyApply(operator, pageCode, status, keywords, archiveFrom));
+        List<Map<String, Object>> rows = workflowMapper.queryMyApply(operator, pageCode, status, keywords, pageSize, offset,
+            archiveFrom);
         List<Map<String, Object>> items = new ArrayList<>();
         for (Map<String, Object> row : rows) {
             Map<String, Object> item = new LinkedHashMap<>();
@@ -396,7 +804,7 @@ public class WorkflowService {
             item.put("updatedAt", pick(row, "updated_at", "updatedAt"));
             items.add(item);
         }
-        return new PageResult<>(items, total == null ? 0 : total, page, pageSize);
+        return total.toPageResult(items, page, pageSize);
     }
 
     public Map<String, Object> timeline(WorkflowRecordTimelineRequest request) {
@@ -427,8 +835,12 @@ public class WorkflowService {
         instanceInfo.put("startedAt", pick(instance, "started_at", "startedAt"));
         instanceInfo.put("finishedAt", pick(instance, "finished_at", "finishedAt"));
         instanceInfo.put("updatedAt", pick(instance, "updated_at", "updatedAt"));
+        instanceInfo.put("archived", Boolean.TRUE.equals(pick(instance, "archived")));
 
-        List<Map<String, Object>> rows = workflowMapper.listTimelineByInstance(instanceId);
+        // A task is never updated before its instance started, which bounds the archive partitions to scan.
+        Object startedAt = pick(instance, "started_at", "startedAt");
+        List<Map<String, Object>> rows = workflowMapper.listTimelineByInstance(instanceId,
+            startedAt instanceof Timestamp ts ? ts.toLocalDateTime() : null);
         List<Map<String, Object>> timeline = new ArrayList<>();
         for (Map<String, Object> row : rows) {
             Map<String, Object> item = new LinkedHashMap<>();
@@ -465,7 +877,7 @@ public class WorkflowService {
         result.put("enabled", bool(pick(template, "enabled"), true));
         result.put("isDefault", bool(pick(template, "is_default", "isDefault"), false));
         result.put("updatedAt", pick(template, "updated_at", "updatedAt"));
-        WorkflowConfig config = parseConfig(pick(template, "config_json", "configJson"));
+        WorkflowConfig config = templateCache.parseConfig(pick(template, "config_json", "configJson"));
         result.put("config", jsonHelper.toMap(jsonHelper.toJson(config)));
         result.put("nodeCount", config.getNodes().size());
         return result;
@@ -479,6 +891,17 @@ public class WorkflowService {
         return record;
     }
 
+    private WorkflowTemplateCache.Template requireInstanceTemplate(Map<String, Object> instance, String pageCode) {
+        Long templateId = toLongObj(pick(instance, "template_id", "templateId"));
+        WorkflowTemplateCache.Template template = templateId != null
+            ? templateCache.getById(templateId)
+            : templateCache.get(pageCode, str(pick(instance, "template_code", "templateCode")));
+        if (template == null) {
+            throw new NotFoundException("workflow template not found");
+        }
+        return template;
+    }
+
     private Map<String, Object> requireActiveInstance(UUID recordId, String pageCode) {
         Map<String, Object> instance = workflowMapper.getActiveInstance(recordId, pageCode);
         if (instance == null) {
@@ -505,36 +928,7 @@ public class WorkflowService {
         }
     }
 
-    private WorkflowConfig parseConfig(Object value) {
-        WorkflowConfig config = jsonHelper.toObject(value, WorkflowConfig.class);
-        return config == null ? new WorkflowConfig() : config;
-    }
-
-    private void validateConfig(WorkflowConfig config) {
-        if (config == null || config.getNodes() == null || config.getNodes().isEmpty()) {
-            throw new BadRequestException("workflow nodes required");
-        }
-        Set<String> codes = new HashSet<>();
-        for (WorkflowNode node : config.getNodes()) {
-            if (node == null || isBlank(node.getCode())) {
-                throw new BadRequestException("node code required");
-            }
-            if (!codes.add(node.getCode())) {
-                throw new BadRequestException("duplicate node code: " + node.getCode());
-            }
-            if (isBlank(node.getMode())) {
-                node.setMode("all");
-            } else {
-                String mode = node.getMode().toLowerCase(Locale.ROOT);
-                if (!"all".equals(mode) && !"any".equals(mode)) {
-                    throw new BadRequestException("invalid node mode: " + node.getMode());
-                }
-                node.setMode(mode);
-            }
-        }
-    }
-
-    private WorkflowNode resolveNode(WorkflowConfig config, long instanceId, WorkflowActionRequest request) {
+    private WorkflowNode resolveNode(WorkflowTemplateCache.Template template, long instanceId, WorkflowActionRequest request) {
         String nodeCode = request == null ? null : trimToNull(request.getNodeCode());
         String operator = request == null ? null : trimToNull(request.getOperator());
 
@@ -545,14 +939,14 @@ public class WorkflowService {
             }
         }
         if (nodeCode == null) {
-            for (WorkflowNode node : config.getNodes()) {
+            for (WorkflowNode node : template.getConfig().getNodes()) {
                 if (workflowMapper.countPendingTasks(instanceId, node.getCode()) > 0) {
                     nodeCode = node.getCode();
                     break;
                 }
             }
         }
-        return findNode(config, nodeCode);
+        return template.findNode(nodeCode);
     }
 
     private Long resolveTaskId(long instanceId, WorkflowNode node, String operator) {
@@ -563,31 +957,6 @@ public class WorkflowService {
         return workflowMapper.findPendingUnassignedTaskId(instanceId, node.getCode());
     }
 
-    private WorkflowNode findNode(WorkflowConfig config, String nodeCode) {
-        if (isBlank(nodeCode)) {
-            return null;
-        }
-        for (WorkflowNode node : config.getNodes()) {
-            if (nodeCode.equals(node.getCode())) {
-                return node;
-            }
-        }
-        return null;
-    }
-
-    private WorkflowNode nextNode(WorkflowConfig config, String nodeCode) {
-        if (isBlank(nodeCode)) {
-            return null;
-        }
-        List<WorkflowNode> nodes = config.getNodes();
-        for (int i = 0; i < nodes.size(); i++) {
-            if (nodeCode.equals(nodes.get(i).getCode())) {
-                return i + 1 < nodes.size() ? nodes.get(i + 1) : null;
-            }
-        }
-        return null;
-    }
-
     private void createTasks(long instanceId,
                              UUID recordId,
                              String pageCode,
@@ -595,16 +964,20 @@ public class WorkflowService {
                              String templateCode,
                              WorkflowNode node,
                              String fallbackAssignee) {
+        workflowMapper.insertTasks(instanceId, recordId, pageCode, templateId, templateCode, node.getCode(),
+            taskAssignees(node, fallbackAssignee));
+    }
+
+    private String[] taskAssignees(WorkflowNode node, String fallbackAssignee) {
         List<String> assignees = node.getAssignees() == null ? new ArrayList<>() : node.getAssignees();
         if (assignees.isEmpty()) {
-            workflowMapper.insertTask(instanceId, recordId, pageCode, templateId, templateCode, node.getCode(),
-                trimToNull(fallbackAssignee), "pending", "pending", null, null);
-            return;
+            return new String[]{trimToNull(fallbackAssignee)};
         }
-        for (String assignee : assignees) {
-            workflowMapper.insertTask(instanceId, recordId, pageCode, templateId, templateCode, node.getCode(),
-                trimToNull(assignee), "pending", "pending", null, null);
+        String[] result = new String[assignees.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = trimToNull(assignees.get(i));
         }
+        return result;
     }
 
     private String nodeMode(WorkflowNode node) {
@@ -0,0 +1,195 @@
+package com.quickform.api.service;
+
+import com.quickform.api.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes task events to subscribed assignees over SSE. The workflow_task triggers publish the events with
+ * pg_notify, so they are delivered only after the writing transaction commits and reach every node.
+ */
+@Component
+public class WorkflowTaskEventHub {
+    public static final String CHANNEL = "workflow_task_event";
+
+    private static final Logger log = LoggerFactory.getLogger(WorkflowTaskEventHub.class);
+
+    private final PgNotificationListener notificationListener;
+    private final JsonHelper jsonHelper;
+    private final WorkflowTodoCounter todoCounter;
+    private final boolean listen;
+    private final long emitterTimeoutMs;
+    private final long heartbeatMs;
+    private final int maxPerAssignee;
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberCount = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private ScheduledExecutorService heartbeat;
+    private ExecutorService sender;
+
+    public WorkflowTaskEventHub(PgNotificationListener notificationListener,
+                                JsonHelper jsonHelper,
+                                WorkflowTodoCounter todoCounter,
+                                @Value("${quickform.workflow.events.listen:true}") boolean listen,
+                                @Value("${quickform.workflow.events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                @Value("${quickform.workflow.events.heartbeat-ms:25000}") long heartbeatMs,
+                                @Value("${quickform.workflow.events.max-per-assignee:20}") int maxPerAssignee) {
+        this.notificationListener = notificationListener;
+        this.jsonHelper = jsonHelper;
+        this.todoCounter = todoCounter;
+        this.listen = listen;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.maxPerAssignee = maxPerAssignee;
+    }
+
+    public SseEmitter subscribe(String assignee) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        // compute() serializes with remove(), so an emitter is never added to a set that was just dropped.
+        subscribers.compute(assignee, (key, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            if (set.size() >= maxPerAssignee) {
+                throw new BadRequestException("too many subscriptions");
+            }
+            set.add(emitter);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        Runnable remove = () -> remove(assignee, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(ex -> remove.run());
+        // The first event carries the current counts so the client does not need a separate query.
+        send(assignee, emitter, "summary", todoCounter.summary(assignee, null));
+        return emitter;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("assignees", subscribers.size());
+        stats.put("subscribers", subscriberCount.get());
+        stats.put("received", received.get());
+        stats.put("delivered", delivered.get());
+        stats.put("listening", notificationListener.isListening(CHANNEL));
+        return stats;
+    }
+
+    private void remove(String assignee, SseEmitter emitter) {
+        boolean[] removed = new boolean[1];
+        subscribers.compute(assignee, (key, emitters) -> {
+            if (emitters == null) {
+                return null;
+            }
+            removed[0] = emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private void dispatch(String payload) {
+        received.incrementAndGet();
+        Map<String, Object> event;
+        try {
+            event = jsonHelper.toMap(payload);
+        } catch (RuntimeException ex) {
+            log.warn("ignoring malformed task event: {}", payload);
+            return;
+        }
+        String assignee = (String) event.get("assignee");
+        if (assignee == null) {
+            return;
+        }
+        todoCounter.invalidate(assignee);
+        Set<SseEmitter> emitters = subscribers.get(assignee);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            sender.execute(() -> send(assignee, emitter, "task", event));
+        }
+    }
+
+    private void broadcast(String name, Object data) {
+        subscribers.forEach((assignee, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                sender.execute(() -> send(assignee, emitter, name, data));
+            }
+        });
+    }
+
+    private void send(String assignee, SseEmitter emitter, String name, Object data) {
+        try {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (name == null) {
+                builder.comment("ping");
+            } else {
+                builder.name(name).data(data, MediaType.APPLICATION_JSON);
+            }
+            // SseEmitter is not thread-safe for concurrent sends on the same connection.
+            synchronized (emitter) {
+                emitter.send(builder);
+            }
+            if (name != null) {
+                delivered.incrementAndGet();
+            }
+        } catch (IOException | IllegalStateException ex) {
+            remove(assignee, emitter);
+            emitter.completeWithError(ex);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        sender = Executors.newFixedThreadPool(4, daemon("workflow-task-event-sender"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("workflow-task-event-heartbeat"));
+        // Comments keep idle connections open through proxies and surface dead clients.
+        heartbeat.scheduleWithFixedDelay(() -> broadcast(null, null), heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        if (!listen) {
+            return;
+        }
+        notificationListener.register(CHANNEL, new PgNotificationListener.Handler() {
+            @Override
+            public void onNotification(String payload) {
+                dispatch(payload);
+            }
+
+            @Override
+            public void onConnect(boolean reconnect) {
+                if (reconnect) {
+                    // Events sent while we were disconnected are lost, so tell clients to reload.
+                    broadcast("resync", Map.of());
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+    }
+
+    private ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,308 @@
+package com.quickform.api.service;
+
+import com.quickform.api.exception.BadRequestException;
+import com.quickform.api.mapper.WorkflowMapper;
+import com.quickform.api.model.WorkflowConfig;
+import com.quickform.api.model.WorkflowNode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Component
+public class WorkflowTemplateCache {
+    public static final String CHANNEL = "workflow_template_changed";
+
+    private final WorkflowMapper workflowMapper;
+    private final JsonHelper jsonHelper;
+    private final PgNotificationListener notificationListener;
+    private final boolean listen;
+    private final Map<String, PageTemplates> pages = new ConcurrentHashMap<>();
+    private final Map<Long, Template> byId = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public WorkflowTemplateCache(WorkflowMapper workflowMapper,
+                                 JsonHelper jsonHelper,
+                                 PgNotificationListener notificationListener,
+                                 @Value("${quickform.workflow.template-cache.listen:true}") boolean listen) {
+        this.workflowMapper = workflowMapper;
+        this.jsonHelper = jsonHelper;
+        this.notificationListener = notificationListener;
+        this.listen = listen;
+    }
+
+    public Template get(String pageCode, String templateCode) {
+        PageTemplates page = page(pageCode);
+        Optional<Template> cached = page.byCode.get(templateCode);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.orElse(null);
+        }
+        return load(() -> workflowMapper.getTemplate(pageCode, templateCode),
+            value -> page.byCode.putIfAbsent(templateCode, value));
+    }
+
+    public Template getDefault(String pageCode) {
+        PageTemplates page = page(pageCode);
+        Optional<Template> cached = page.defaultTemplate;
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.orElse(null);
+        }
+        return load(() -> workflowMapper.getDefaultTemplate(pageCode), value -> page.defaultTemplate = value);
+    }
+
+    public Template getById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Template cached = byId.get(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        return load(() -> workflowMapper.getTemplateById(id), value -> { });
+    }
+
+    /**
+     * Drops the page's templates once the current transaction commits and tells the other nodes to do the same.
+     */
+    public void invalidateOnCommit(String pageCode) {
+        workflowMapper.notifyTemplateChanged(CHANNEL, pageCode);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(pageCode);
+                }
+            });
+        } else {
+            invalidate(pageCode);
+        }
+    }
+
+    public void invalidate(String pageCode) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        pages.remove(pageCode);
+        byId.values().removeIf(template -> template.pageCode.equals(pageCode));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        pages.clear();
+        byId.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pages", pages.size());
+        stats.put("templates", byId.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("listening", notificationListener.isListening(CHANNEL));
+        return stats;
+    }
+
+    public WorkflowConfig parseConfig(Object value) {
+        WorkflowConfig config = jsonHelper.toObject(value, WorkflowConfig.class);
+        return config == null ? new WorkflowConfig() : config;
+    }
+
+    public void validateConfig(WorkflowConfig config) {
+        if (config == null || config.getNodes() == null || config.getNodes().isEmpty()) {
+            throw new BadRequestException("workflow nodes required");
+        }
+        Set<String> codes = new HashSet<>();
+        for (WorkflowNode node : config.getNodes()) {
+            if (node == null || isBlank(node.getCode())) {
+                throw new BadRequestException("node code required");
+            }
+            if (!codes.add(node.getCode())) {
+                throw new BadRequestException("duplicate node code: " + node.getCode());
+            }
+            if (isBlank(node.getMode())) {
+                node.setMode("all");
+            } else {
+                String mode = node.getMode().toLowerCase(Locale.ROOT);
+                if (!"all".equals(mode) && !"any".equals(mode)) {
+                    throw new BadRequestException("invalid node mode: " + node.getMode());
+                }
+                node.setMode(mode);
+            }
+        }
+    }
+
+    private PageTemplates page(String pageCode) {
+        return pages.computeIfAbsent(pageCode, key -> new PageTemplates());
+    }
+
+    // A load that raced with an invalidation may have read the old row, so its result is returned but not cached.
+    private Template load(Supplier<Map<String, Object>> loader, Consumer<Optional<Template>> store) {
+        misses.incrementAndGet();
+        long before = generation.get();
+        Map<String, Object> row = loader.get();
+        Template template = row == null ? null : toTemplate(row);
+        if (generation.get() == before) {
+            store.accept(Optional.ofNullable(template));
+            if (template != null) {
+                byId.put(template.id, template);
+                if (generation.get() != before) {
+                    byId.remove(template.id, template);
+                }
+            }
+        }
+        return template;
+    }
+
+    private Template toTemplate(Map<String, Object> row) {
+        WorkflowConfig config = parseConfig(pick(row, "config_json", "configJson"));
+        validateConfig(config);
+        List<WorkflowNode> nodes = new ArrayList<>();
+        Map<String, Integer> nodeIndex = new HashMap<>();
+        for (WorkflowNode node : config.getNodes()) {
+            WorkflowNode copy = new WorkflowNode();
+            copy.setCode(node.getCode());
+            copy.setName(node.getName());
+            copy.setMode(node.getMode());
+            copy.setAssignees(node.getAssignees() == null ? List.of() : List.copyOf(node.getAssignees()));
+            nodeIndex.put(copy.getCode(), nodes.size());
+            nodes.add(copy);
+        }
+        WorkflowConfig frozen = new WorkflowConfig();
+        frozen.setNodes(Collections.unmodifiableList(nodes));
+        Object enabled = pick(row, "enabled");
+        return new Template(
+            ((Number) pick(row, "id")).longValue(),
+            String.valueOf(pick(row, "page_code", "pageCode")),
+            String.valueOf(pick(row, "template_code", "templateCode")),
+            (String) pick(row, "name"),
+            enabled == null || Boolean.parseBoolean(enabled.toString()),
+            frozen,
+            nodeIndex);
+    }
+
+    private Object pick(Map<String, Object> row, String... keys) {
+        for (String key : keys) {
+            if (row.containsKey(key)) {
+                return row.get(key);
+            }
+        }
+        return null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!listen) {
+            return;
+        }
+        notificationListener.register(CHANNEL, new PgNotificationListener.Handler() {
+            @Override
+            public void onNotification(String pageCode) {
+                if (pageCode == null || pageCode.isEmpty()) {
+                    invalidateAll();
+                } else {
+                    invalidate(pageCode);
+                }
+            }
+
+            @Override
+            public void onConnect(boolean reconnect) {
+                // Notifications sent while we were disconnected are lost, so start from a clean cache.
+                invalidateAll();
+            }
+
+            @Override
+            public void onDisconnect() {
+                invalidateAll();
+            }
+        });
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static class PageTemplates {
+        private final Map<String, Optional<Template>> byCode = new ConcurrentHashMap<>();
+        private volatile Optional<Template> defaultTemplate;
+    }
+
+    public static class Template {
+        private final long id;
+        private final String pageCode;
+        private final String templateCode;
+        private final String name;
+        private final boolean enabled;
+        private final WorkflowConfig config;
+        private final Map<String, Integer> nodeIndex;
+
+        private Template(long id, String pageCode, String templateCode, String name, boolean enabled,
+                         WorkflowConfig config, Map<String, Integer> nodeIndex) {
+            this.id = id;
+            this.pageCode = pageCode;
+            this.templateCode = templateCode;
+            this.name = name;
+            this.enabled = enabled;
+            this.config = config;
+            this.nodeIndex = nodeIndex;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getPageCode() {
+            return pageCode;
+        }
+
+        public String getTemplateCode() {
+            return templateCode;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public WorkflowConfig getConfig() {
+            return config;
+        }
+
+        public WorkflowNode firstNode() {
+            return config.getNodes().get(0);
+        }
+
+        public WorkflowNode findNode(String nodeCode) {
+            Integer index = nodeCode == null ? null : nodeIndex.get(nodeCode);
+            return index == null ? null : config.getNodes().get(index);
+        }
+
+        public WorkflowNode nextNode(String nodeCode) {
+            Integer index = nodeCode == null ? null : nodeIndex.get(nodeCode);
+            if (index == null || index + 1 >= config.getNodes().size()) {
+                return null;
+            }
+            return config.getNodes().get(index + 1);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.quickform.api.service;
+
+import com.quickform.api.mapper.WorkflowMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Per-assignee pending task counts read from workflow_todo_counter, which the workflow_task triggers keep
+ * in step with every task insert and status change. Results are cached briefly because the portal header
+ * asks for them on every page load.
+ */
+@Component
+public class WorkflowTodoCounter {
+    private final WorkflowMapper workflowMapper;
+    private final long ttlMs;
+    private final LruCache<String, Summary> cache;
+
+    public WorkflowTodoCounter(WorkflowMapper workflowMapper,
+                               @Value("${quickform.workflow.todo-summary.cache-ttl-ms:3000}") long ttlMs,
+                               @Value("${quickform.workflow.todo-summary.cache-size:10000}") int cacheSize) {
+        this.workflowMapper = workflowMapper;
+        this.ttlMs = ttlMs;
+        this.cache = new LruCache<>(cacheSize);
+    }
+
+    public Map<String, Object> summary(String assignee, String pageCode) {
+        Summary summary = cache.get(assignee);
+        long now = System.currentTimeMillis();
+        if (summary == null || now - summary.loadedAt > ttlMs) {
+            Map<String, Long> pages = new LinkedHashMap<>();
+            for (Map<String, Object> row : workflowMapper.listTodoCounts(assignee)) {
+                pages.put(String.valueOf(row.get("page_code")), ((Number) row.get("pending")).longValue());
+            }
+            summary = new Summary(pages, now);
+            cache.put(assignee, summary);
+        }
+
+        long total = 0;
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : summary.pages.entrySet()) {
+            if (pageCode != null && !pageCode.equals(entry.getKey())) {
+                continue;
+            }
+            total += entry.getValue();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("pageCode", entry.getKey());
+            item.put("count", entry.getValue());
+            items.add(item);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("assignee", assignee);
+        result.put("total", total);
+        result.put("pages", items);
+        return result;
+    }
+
+    public void invalidate(String assignee) {
+        cache.invalidate(assignee);
+    }
+
+    @Transactional
+    public Map<String, Object> rebuild() {
+        workflowMapper.lockTasksForCounterRebuild();
+        workflowMapper.clearTodoCounters();
+        int rows = workflowMapper.fillTodoCounters();
+        cache.invalidateAll();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("counters", rows);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = cache.stats();
+        stats.put("ttlMs", ttlMs);
+        return stats;
+    }
+
+    private static class Summary {
+        private final Map<String, Long> pages;
+        private final long loadedAt;
+
+        private Summary(Map<String, Long> pages, long loadedAt) {
+            this.pages = pages;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+-- Indexes on tables that may already hold production data. schema.sql runs on every boot inside the init
+-- script, where a plain CREATE INDEX blocks writes for the whole build, so these are applied after startup
+-- by OnlineIndexService, one statement at a time and in order. Only CREATE INDEX CONCURRENTLY IF NOT EXISTS
+-- and DROP INDEX CONCURRENTLY IF EXISTS are allowed; a failure stops the run, so a DROP placed after a
+-- CREATE only happens once the replacement is valid.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_workflow_instance_search_trgm ON workflow_instance USING GIN (search_text gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_workflow_instance_template ON workflow_instance(template_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_task_search_trgm ON workflow_task USING GIN (search_text gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_task_template_id ON workflow_task(template_id);
+
+-- jsonb_path_ops replaces the default jsonb_ops containment index; the old one is dropped only once the new one is valid.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_data_gin_path ON data_record USING GIN (data jsonb_path_ops);
+DROP INDEX CONCURRENTLY IF EXISTS idx_data_gin;
@@ -1,4 +1,5 @@
 CREATE EXTENSION IF NOT EXISTS pgcrypto;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
 
 CREATE TABLE IF NOT EXISTS data_record (
   id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
@@ -11,6 +12,35 @@ CREATE TABLE IF NOT EXISTS data_record (
   updated_by TEXT
 );
 
+ALTER TABLE data_record ADD COLUMN IF NOT EXISTS search_text TEXT;
+
+CREATE TABLE IF NOT EXISTS data_search_config (
+  page_code TEXT PRIMARY KEY,
+  fields TEXT[] NOT NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE OR REPLACE FUNCTION data_search_text(p_page_code TEXT, p_data JSONB) RETURNS TEXT
+LANGUAGE sql STABLE AS '
+  SELECT string_agg(e.value, '' '')
+  FROM jsonb_each_text(p_data) e
+  LEFT JOIN data_search_config c ON c.page_code = p_page_code
+  WHERE c.fields IS NULL OR e.key = ANY(c.fields)
+';
+
+CREATE OR REPLACE FUNCTION data_record_search_text() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+BEGIN
+  NEW.search_text := COALESCE(data_search_text(NEW.page_code, NEW.data), '''');
+  RETURN NEW;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_data_record_search_text ON data_record;
+CREATE TRIGGER trg_data_record_search_text
+  BEFORE INSERT OR UPDATE OF data, page_code ON data_record
+  FOR EACH ROW EXECUTE FUNCTION data_record_search_text();
+
 CREATE TABLE IF NOT EXISTS workflow_template (
   id BIGSERIAL PRIMARY KEY,
   page_code TEXT NOT NULL,
@@ -54,6 +84,393 @@ CREATE TABLE IF NOT EXISTS workflow_task (
   updated_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+-- Plain nullable columns so adding them never rewrites the table; rows older than the column are filled by
+-- WorkflowSearchTextBackfill. Earlier versions declared them GENERATED ... STORED, which is kept as a plain column.
+ALTER TABLE workflow_instance ADD COLUMN IF NOT EXISTS search_text TEXT;
+ALTER TABLE workflow_task ADD COLUMN IF NOT EXISTS search_text TEXT;
+
+DO '
+DECLARE
+  v_table TEXT;
+BEGIN
+  FOR v_table IN
+    SELECT c.relname FROM pg_attribute a JOIN pg_class c ON c.oid = a.attrelid
+    WHERE c.relname IN (''workflow_instance'', ''workflow_task'') AND c.relnamespace = current_schema()::regnamespace
+      AND a.attname = ''search_text'' AND a.attgenerated = ''s''
+  LOOP
+    EXECUTE format(''ALTER TABLE %I ALTER COLUMN search_text DROP EXPRESSION'', v_table);
+  END LOOP;
+END
+';
+
+-- Progress of one-off keyset backfills, so a restart resumes instead of rescanning finished tables.
+CREATE TABLE IF NOT EXISTS schema_backfill (
+  name TEXT PRIMARY KEY,
+  last_id BIGINT NOT NULL DEFAULT 0,
+  finished_at TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE OR REPLACE FUNCTION workflow_instance_search_text() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+BEGIN
+  NEW.search_text := NEW.record_id::text || '' '' || COALESCE(NEW.current_node_code, '''');
+  RETURN NEW;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_workflow_instance_search_text ON workflow_instance;
+CREATE TRIGGER trg_workflow_instance_search_text
+  BEFORE INSERT OR UPDATE OF record_id, current_node_code ON workflow_instance
+  FOR EACH ROW EXECUTE FUNCTION workflow_instance_search_text();
+
+CREATE OR REPLACE FUNCTION workflow_task_search_text() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+BEGIN
+  NEW.search_text := NEW.record_id::text || '' '' || NEW.node_code;
+  RETURN NEW;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_workflow_task_search_text ON workflow_task;
+CREATE TRIGGER trg_workflow_task_search_text
+  BEFORE INSERT OR UPDATE OF record_id, node_code ON workflow_task
+  FOR EACH ROW EXECUTE FUNCTION workflow_task_search_text();
+
+-- The archive tables are partitioned on updated_at, the column the done/my-apply lists sort and bound on.
+-- An archive table created by an earlier build on another key is recreated while it is still empty; a populated
+-- one is kept, which only costs partition pruning since every query filters on updated_at.
+DO '
+DECLARE
+  v_table TEXT;
+  v_has_rows BOOLEAN;
+BEGIN
+  FOR v_table IN
+    SELECT c.relname
+    FROM pg_partitioned_table p
+    JOIN pg_class c ON c.oid = p.partrelid
+    JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+    WHERE c.relname IN (''workflow_instance_archive'', ''workflow_task_archive'')
+      AND c.relnamespace = current_schema()::regnamespace
+      AND a.attname <> ''updated_at''
+  LOOP
+    EXECUTE format(''SELECT EXISTS (SELECT 1 FROM %I)'', v_table) INTO v_has_rows;
+    IF v_has_rows THEN
+      RAISE NOTICE ''% is not partitioned on updated_at and holds rows; kept as is'', v_table;
+    ELSE
+      EXECUTE format(''DROP TABLE %I CASCADE'', v_table);
+    END IF;
+  END LOOP;
+END
+';
+
+CREATE TABLE IF NOT EXISTS workflow_instance_archive (
+  id BIGINT NOT NULL,
+  page_code TEXT NOT NULL,
+  template_id BIGINT,
+  record_id UUID NOT NULL,
+  template_code TEXT NOT NULL,
+  status TEXT NOT NULL,
+  current_node_code TEXT,
+  starter TEXT,
+  started_at TIMESTAMP NOT NULL,
+  finished_at TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL,
+  archived_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  search_text TEXT GENERATED ALWAYS AS (record_id::text || ' ' || COALESCE(current_node_code, '')) STORED,
+  PRIMARY KEY (id, updated_at)
+) PARTITION BY RANGE (updated_at);
+
+CREATE TABLE IF NOT EXISTS workflow_task_archive (
+  id BIGINT NOT NULL,
+  instance_id BIGINT NOT NULL,
+  page_code TEXT NOT NULL,
+  record_id UUID NOT NULL,
+  template_id BIGINT,
+  template_code TEXT NOT NULL,
+  node_code TEXT NOT NULL,
+  assignee TEXT,
+  status TEXT NOT NULL,
+  action TEXT NOT NULL,
+  comment TEXT,
+  operated_by TEXT,
+  created_at TIMESTAMP NOT NULL,
+  updated_at TIMESTAMP NOT NULL,
+  instance_status TEXT NOT NULL,
+  instance_starter TEXT,
+  instance_started_at TIMESTAMP NOT NULL,
+  instance_finished_at TIMESTAMP,
+  search_text TEXT GENERATED ALWAYS AS (record_id::text || ' ' || node_code) STORED,
+  PRIMARY KEY (id, updated_at)
+) PARTITION BY RANGE (updated_at);
+
+-- Creates the monthly archive partitions covering [p_from, p_to]; the archive job calls it before moving rows.
+CREATE OR REPLACE FUNCTION workflow_archive_ensure_partitions(p_from TIMESTAMP, p_to TIMESTAMP) RETURNS INT
+LANGUAGE plpgsql AS '
+DECLARE
+  m DATE := date_trunc(''month'', p_from)::date;
+  suffix TEXT;
+  created INT := 0;
+BEGIN
+  WHILE m <= p_to LOOP
+    suffix := to_char(m, ''YYYYMM'');
+    IF to_regclass(''workflow_instance_archive_p'' || suffix) IS NULL THEN
+      EXECUTE format(''CREATE TABLE IF NOT EXISTS %I PARTITION OF workflow_instance_archive FOR VALUES FROM (%L) TO (%L)'',
+        ''workflow_instance_archive_p'' || suffix, m, (m + INTERVAL ''1 month'')::date);
+      created := created + 1;
+    END IF;
+    IF to_regclass(''workflow_task_archive_p'' || suffix) IS NULL THEN
+      EXECUTE format(''CREATE TABLE IF NOT EXISTS %I PARTITION OF workflow_task_archive FOR VALUES FROM (%L) TO (%L)'',
+        ''workflow_task_archive_p'' || suffix, m, (m + INTERVAL ''1 month'')::date);
+      created := created + 1;
+    END IF;
+    m := (m + INTERVAL ''1 month'')::date;
+  END LOOP;
+  RETURN created;
+END
+';
+
+CREATE TABLE IF NOT EXISTS workflow_todo_counter (
+  assignee TEXT NOT NULL,
+  page_code TEXT NOT NULL,
+  pending BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  PRIMARY KEY (assignee, page_code)
+);
+
+CREATE OR REPLACE FUNCTION workflow_todo_counter_apply() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+BEGIN
+  IF TG_OP = ''INSERT'' THEN
+    INSERT INTO workflow_todo_counter AS c (assignee, page_code, pending)
+    SELECT n.assignee, n.page_code, COUNT(1)
+    FROM new_rows n
+    WHERE n.status = ''pending'' AND n.assignee IS NOT NULL
+    GROUP BY n.assignee, n.page_code
+    ORDER BY n.assignee, n.page_code
+    ON CONFLICT (assignee, page_code)
+    DO UPDATE SET pending = c.pending + EXCLUDED.pending, updated_at = NOW();
+  ELSIF TG_OP = ''DELETE'' THEN
+    INSERT INTO workflow_todo_counter AS c (assignee, page_code, pending)
+    SELECT o.assignee, o.page_code, -COUNT(1)
+    FROM old_rows o
+    WHERE o.status = ''pending'' AND o.assignee IS NOT NULL
+    GROUP BY o.assignee, o.page_code
+    ORDER BY o.assignee, o.page_code
+    ON CONFLICT (assignee, page_code)
+    DO UPDATE SET pending = c.pending + EXCLUDED.pending, updated_at = NOW();
+  ELSE
+    INSERT INTO workflow_todo_counter AS c (assignee, page_code, pending)
+    SELECT d.assignee, d.page_code, SUM(d.delta)
+    FROM (
+      SELECT n.assignee, n.page_code, 1 AS delta
+      FROM new_rows n
+      WHERE n.status = ''pending'' AND n.assignee IS NOT NULL
+      UNION ALL
+      SELECT o.assignee, o.page_code, -1 AS delta
+      FROM old_rows o
+      WHERE o.status = ''pending'' AND o.assignee IS NOT NULL
+    ) d
+    GROUP BY d.assignee, d.page_code
+    HAVING SUM(d.delta) <> 0
+    ORDER BY d.assignee, d.page_code
+    ON CONFLICT (assignee, page_code)
+    DO UPDATE SET pending = c.pending + EXCLUDED.pending, updated_at = NOW();
+  END IF;
+  RETURN NULL;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_workflow_todo_counter_insert ON workflow_task;
+CREATE TRIGGER trg_workflow_todo_counter_insert
+  AFTER INSERT ON workflow_task
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_todo_counter_apply();
+
+DROP TRIGGER IF EXISTS trg_workflow_todo_counter_update ON workflow_task;
+CREATE TRIGGER trg_workflow_todo_counter_update
+  AFTER UPDATE ON workflow_task
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_todo_counter_apply();
+
+DROP TRIGGER IF EXISTS trg_workflow_todo_counter_delete ON workflow_task;
+CREATE TRIGGER trg_workflow_todo_counter_delete
+  AFTER DELETE ON workflow_task
+  REFERENCING OLD TABLE AS old_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_todo_counter_apply();
+
+CREATE OR REPLACE FUNCTION workflow_task_notify() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+DECLARE
+  e RECORD;
+BEGIN
+  IF TG_OP = ''INSERT'' THEN
+    FOR e IN
+      SELECT ''created'' AS type, n.assignee, n.page_code, COUNT(1) AS count
+      FROM new_rows n
+      WHERE n.status = ''pending'' AND n.assignee IS NOT NULL
+      GROUP BY n.assignee, n.page_code
+    LOOP
+      PERFORM pg_notify(''workflow_task_event'',
+        json_build_object(''type'', e.type, ''assignee'', e.assignee, ''pageCode'', e.page_code, ''count'', e.count)::text);
+    END LOOP;
+  ELSE
+    FOR e IN
+      SELECT CASE WHEN n.status = ''done'' THEN ''completed'' ELSE n.status END AS type,
+             o.assignee, o.page_code, COUNT(1) AS count
+      FROM old_rows o
+      JOIN new_rows n ON n.id = o.id
+      WHERE o.status = ''pending'' AND n.status <> ''pending'' AND o.assignee IS NOT NULL
+      GROUP BY 1, o.assignee, o.page_code
+    LOOP
+      PERFORM pg_notify(''workflow_task_event'',
+        json_build_object(''type'', e.type, ''assignee'', e.assignee, ''pageCode'', e.page_code, ''count'', e.count)::text);
+    END LOOP;
+  END IF;
+  RETURN NULL;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_workflow_task_notify_insert ON workflow_task;
+CREATE TRIGGER trg_workflow_task_notify_insert
+  AFTER INSERT ON workflow_task
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_task_notify();
+
+DROP TRIGGER IF EXISTS trg_workflow_task_notify_update ON workflow_task;
+CREATE TRIGGER trg_workflow_task_notify_update
+  AFTER UPDATE ON workflow_task
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_task_notify();
+
+CREATE TABLE IF NOT EXISTS workflow_event (
+  id BIGSERIAL PRIMARY KEY,
+  event_type TEXT NOT NULL,
+  instance_id BIGINT NOT NULL,
+  page_code TEXT NOT NULL,
+  record_id UUID NOT NULL,
+  node_code TEXT,
+  task_id BIGINT,
+  actor TEXT,
+  payload JSONB NOT NULL DEFAULT '{}'::jsonb,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  attempts INT NOT NULL DEFAULT 0,
+  next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  last_error TEXT,
+  dispatched_at TIMESTAMP
+);
+
+-- seq orders events: statement order first, then task before instance events written by the same statement.
+ALTER TABLE workflow_event ADD COLUMN IF NOT EXISTS seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE workflow_event ADD COLUMN IF NOT EXISTS lease_token UUID;
+ALTER TABLE workflow_event ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+
+DROP INDEX IF EXISTS idx_workflow_event_pending;
+DROP INDEX IF EXISTS idx_workflow_event_instance_pending;
+CREATE INDEX IF NOT EXISTS idx_workflow_event_pending_seq ON workflow_event(seq, id) WHERE dispatched_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_workflow_event_instance_pending_seq ON workflow_event(instance_id, seq, id) WHERE dispatched_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_workflow_event_dispatched ON workflow_event(dispatched_at) WHERE dispatched_at IS NOT NULL;
+
+-- One base per statement, shared by every outbox trigger the statement fires. Data-modifying CTEs fire their
+-- triggers in no fixed order, so ids alone cannot order task.completed before instance.completed.
+CREATE OR REPLACE FUNCTION workflow_event_statement_base() RETURNS BIGINT
+LANGUAGE plpgsql AS '
+DECLARE
+  stmt TEXT := txid_current()::text || '':'' || statement_timestamp()::text;
+BEGIN
+  IF current_setting(''quickform.event_statement'', true) IS DISTINCT FROM stmt THEN
+    PERFORM set_config(''quickform.event_statement'', stmt, true);
+    PERFORM set_config(''quickform.event_base'', (nextval(''workflow_event_id_seq'') * 4)::text, true);
+  END IF;
+  RETURN current_setting(''quickform.event_base'')::bigint;
+END
+';
+
+CREATE OR REPLACE FUNCTION workflow_instance_outbox() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+DECLARE
+  base BIGINT := workflow_event_statement_base();
+BEGIN
+  IF TG_OP = ''INSERT'' THEN
+    INSERT INTO workflow_event (event_type, instance_id, page_code, record_id, node_code, actor, payload, seq)
+    SELECT ''instance.submitted'', n.id, n.page_code, n.record_id, n.current_node_code, n.starter,
+           jsonb_build_object(''templateId'', n.template_id, ''templateCode'', n.template_code), base
+    FROM new_rows n
+    ORDER BY n.id;
+  ELSE
+    INSERT INTO workflow_event (event_type, instance_id, page_code, record_id, node_code, payload, seq)
+    SELECT CASE WHEN n.status = ''submitted'' THEN ''instance.advanced'' ELSE ''instance.completed'' END,
+           n.id, n.page_code, n.record_id,
+           CASE WHEN n.status = ''submitted'' THEN n.current_node_code ELSE o.current_node_code END,
+           jsonb_build_object(''status'', n.status, ''fromNodeCode'', o.current_node_code), base + 2
+    FROM old_rows o
+    JOIN new_rows n ON n.id = o.id
+    WHERE o.status = ''submitted''
+      AND (n.status <> ''submitted'' OR n.current_node_code IS DISTINCT FROM o.current_node_code)
+    ORDER BY n.id;
+  END IF;
+  RETURN NULL;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_workflow_instance_outbox_insert ON workflow_instance;
+CREATE TRIGGER trg_workflow_instance_outbox_insert
+  AFTER INSERT ON workflow_instance
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_instance_outbox();
+
+DROP TRIGGER IF EXISTS trg_workflow_instance_outbox_update ON workflow_instance;
+CREATE TRIGGER trg_workflow_instance_outbox_update
+  AFTER UPDATE ON workflow_instance
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_instance_outbox();
+
+CREATE OR REPLACE FUNCTION workflow_task_outbox() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+DECLARE
+  base BIGINT := workflow_event_statement_base();
+BEGIN
+  INSERT INTO workflow_event (event_type, instance_id, page_code, record_id, node_code, task_id, actor, payload, seq)
+  SELECT ''task.completed'', n.instance_id, n.page_code, n.record_id, n.node_code, n.id, n.operated_by,
+         jsonb_build_object(''action'', n.action, ''comment'', n.comment, ''assignee'', n.assignee), base + 1
+  FROM old_rows o
+  JOIN new_rows n ON n.id = o.id
+  WHERE o.status = ''pending'' AND n.status = ''done''
+  ORDER BY n.instance_id, n.id;
+  RETURN NULL;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_workflow_task_outbox_update ON workflow_task;
+CREATE TRIGGER trg_workflow_task_outbox_update
+  AFTER UPDATE ON workflow_task
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION workflow_task_outbox();
+
+-- One-off seed of the counters from existing tasks, gated on a marker row rather than on the counter table being
+-- empty. SHARE ROW EXCLUSIVE blocks task writers and conflicts with itself, so the counts are rebuilt from a
+-- stable task table (dropping anything the triggers already recorded) and a second node waits, then sees the marker.
+DO '
+BEGIN
+  IF EXISTS (SELECT 1 FROM schema_backfill WHERE name = ''workflow_todo_counter.seed'') THEN
+    RETURN;
+  END IF;
+  LOCK TABLE workflow_task IN SHARE ROW EXCLUSIVE MODE;
+  INSERT INTO schema_backfill (name, finished_at) VALUES (''workflow_todo_counter.seed'', NOW())
+  ON CONFLICT (name) DO NOTHING;
+  IF NOT FOUND THEN
+    RETURN;
+  END IF;
+  DELETE FROM workflow_todo_counter;
+  INSERT INTO workflow_todo_counter (assignee, page_code, pending)
+  SELECT t.assignee, t.page_code, COUNT(1)
+  FROM workflow_task t
+  WHERE t.status = ''pending''
+    AND t.assignee IS NOT NULL
+  GROUP BY t.assignee, t.page_code;
+END
+';
+
 CREATE TABLE IF NOT EXISTS report (
   id BIGSERIAL PRIMARY KEY,
   page_code TEXT NOT NULL,
@@ -62,8 +479,92 @@ CREATE TABLE IF NOT EXISTS report (
   options JSONB NOT NULL DEFAULT '{}'::jsonb
 );
 
+ALTER TABLE report ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE report ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+CREATE OR REPLACE FUNCTION report_touch() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+BEGIN
+  NEW.version := OLD.version + 1;
+  NEW.updated_at := NOW();
+  RETURN NEW;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_report_touch ON report;
+CREATE TRIGGER trg_report_touch
+  BEFORE UPDATE ON report
+  FOR EACH ROW EXECUTE FUNCTION report_touch();
+
+-- Report definitions are cached on every node; tell them which page changed once the write commits.
+CREATE OR REPLACE FUNCTION report_notify() RETURNS TRIGGER
+LANGUAGE plpgsql AS '
+BEGIN
+  IF TG_OP = ''INSERT'' THEN
+    PERFORM pg_notify(''report_changed'', NEW.page_code);
+  ELSIF TG_OP = ''DELETE'' THEN
+    PERFORM pg_notify(''report_changed'', OLD.page_code);
+  ELSE
+    PERFORM pg_notify(''report_changed'', OLD.page_code);
+    IF NEW.page_code <> OLD.page_code THEN
+      PERFORM pg_notify(''report_changed'', NEW.page_code);
+    END IF;
+  END IF;
+  RETURN NULL;
+END
+';
+
+DROP TRIGGER IF EXISTS trg_report_notify ON report;
+CREATE TRIGGER trg_report_notify
+  AFTER INSERT OR UPDATE OR DELETE ON report
+  FOR EACH ROW EXECUTE FUNCTION report_notify();
+
+CREATE TABLE IF NOT EXISTS report_job (
+  id UUID PRIMARY KEY,
+  page_code TEXT NOT NULL,
+  dedup_key TEXT NOT NULL,
+  params JSONB NOT NULL DEFAULT '{}'::jsonb,
+  status TEXT NOT NULL DEFAULT 'queued' CHECK (status IN ('queued', 'running', 'done', 'failed')),
+  row_count BIGINT NOT NULL DEFAULT 0,
+  error TEXT,
+  result BYTEA,
+  result_bytes BIGINT,
+  created_by TEXT,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  started_at TIMESTAMP,
+  finished_at TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  expires_at TIMESTAMP
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_report_job_active ON report_job(dedup_key) WHERE status IN ('queued', 'running');
+CREATE INDEX IF NOT EXISTS idx_report_job_done ON report_job(dedup_key, finished_at DESC) WHERE status = 'done';
+CREATE INDEX IF NOT EXISTS idx_report_job_expires ON report_job(expires_at);
+CREATE INDEX IF NOT EXISTS idx_report_job_queued ON report_job(created_at) WHERE status = 'queued';
+
+-- One row per materialized report: the view currently serving it (report_snapshot_<id>_v<version>).
+CREATE TABLE IF NOT EXISTS report_snapshot (
+  report_id BIGINT PRIMARY KEY,
+  page_code TEXT NOT NULL,
+  version BIGINT NOT NULL,
+  view_name TEXT NOT NULL,
+  concurrent BOOLEAN NOT NULL DEFAULT FALSE,
+  refreshed_at TIMESTAMP,
+  refresh_ms BIGINT,
+  refresh_count BIGINT NOT NULL DEFAULT 0,
+  last_error TEXT,
+  last_error_at TIMESTAMP
+);
+
+-- The view replaced by the last swap; dropped on the next refresh, once no node still reads it.
+ALTER TABLE report_snapshot ADD COLUMN IF NOT EXISTS previous_view TEXT;
+
 CREATE INDEX IF NOT EXISTS idx_data_page ON data_record(page_code);
-CREATE INDEX IF NOT EXISTS idx_data_gin ON data_record USING GIN (data);
+CREATE INDEX IF NOT EXISTS idx_data_page_updated ON data_record(page_code, updated_at DESC, id DESC);
+-- The jsonb_path_ops containment index replacing idx_data_gin is built by online-indexes.sql.
+CREATE INDEX IF NOT EXISTS idx_data_search_trgm ON data_record USING GIN (search_text gin_trgm_ops);
+-- Rows written before search_text existed; empty once the startup backfill has run.
+CREATE INDEX IF NOT EXISTS idx_data_search_missing ON data_record(id) WHERE search_text IS NULL;
 CREATE INDEX IF NOT EXISTS idx_data_status ON data_record(status);
 CREATE INDEX IF NOT EXISTS idx_data_creator ON data_record(created_by);
 CREATE INDEX IF NOT EXISTS idx_workflow_template_page ON workflow_template(page_code);
@@ -72,10 +573,30 @@ CREATE UNIQUE INDEX IF NOT EXISTS uk_workflow_template_default_page ON workflow_
 CREATE INDEX IF NOT EXISTS idx_workflow_instance_record ON workflow_instance(record_id, page_code);
 CREATE INDEX IF NOT EXISTS idx_workflow_instance_starter ON workflow_instance(starter, page_code, updated_at DESC);
 CREATE UNIQUE INDEX IF NOT EXISTS uk_workflow_instance_active_record ON workflow_instance(page_code, record_id) WHERE status = 'submitted';
+CREATE INDEX IF NOT EXISTS idx_workflow_instance_finished ON workflow_instance(finished_at) WHERE status <> 'submitted';
 CREATE INDEX IF NOT EXISTS idx_report_page ON report(page_code);
 CREATE UNIQUE INDEX IF NOT EXISTS uk_report_page_code ON report(page_code);
-CREATE INDEX IF NOT EXISTS idx_task_todo ON workflow_task(assignee, status, page_code, created_at DESC);
+DROP INDEX IF EXISTS idx_task_todo;
+CREATE INDEX IF NOT EXISTS idx_task_pending ON workflow_task(assignee, page_code, created_at DESC) WHERE status = 'pending';
 CREATE INDEX IF NOT EXISTS idx_task_record_node_status ON workflow_task(record_id, node_code, status);
 CREATE INDEX IF NOT EXISTS idx_task_instance_node_status ON workflow_task(instance_id, node_code, status);
 CREATE INDEX IF NOT EXISTS idx_task_template ON workflow_task(page_code, template_code);
 CREATE INDEX IF NOT EXISTS idx_task_operated ON workflow_task(operated_by, action, updated_at DESC);
+CREATE INDEX IF NOT EXISTS idx_template_name_trgm ON workflow_template USING GIN (name gin_trgm_ops);
+-- Indexes on workflow_instance/workflow_task search_text and template_id are built by online-indexes.sql.
+CREATE INDEX IF NOT EXISTS idx_instance_archive_starter ON workflow_instance_archive(starter, page_code, updated_at DESC);
+CREATE INDEX IF NOT EXISTS idx_instance_archive_record ON workflow_instance_archive(record_id, page_code);
+CREATE INDEX IF NOT EXISTS idx_instance_archive_search_trgm ON workflow_instance_archive USING GIN (search_text gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_task_archive_operated ON workflow_task_archive(operated_by, action, updated_at DESC);
+CREATE INDEX IF NOT EXISTS idx_task_archive_instance ON workflow_task_archive(instance_id);
+CREATE INDEX IF NOT EXISTS idx_task_archive_search_trgm ON workflow_task_archive USING GIN (search_text gin_trgm_ops);
+
+CREATE TABLE IF NOT EXISTS data_field_index (
+  page_code TEXT NOT NULL,
+  field TEXT NOT NULL,
+  kind TEXT NOT NULL CHECK (kind IN ('text', 'numeric', 'boolean')),
+  index_name TEXT NOT NULL UNIQUE,
+  created_by TEXT,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  PRIMARY KEY (page_code, field, kind)
+);